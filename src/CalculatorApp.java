@@ -1,6 +1,7 @@
 
 import javafx.application.Application;
-import javafx.concurrent.Task;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -10,42 +11,82 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.net.URI;
-import java.time.LocalDate;
 
 public class CalculatorApp extends Application {
     private CalculatorLogic logic = new CalculatorLogic();
     private TextField display = new TextField();
-    private boolean isEmptyInput = true;
-    // ...existing code...
-    private boolean justCalculated = false;
-    private boolean lastWasEqual = false;
-    private String currentInput = "";
+    private Label previewLabel = new Label();
     
     // Istoric și teme
-    private java.util.List<String> history = new java.util.ArrayList<>();
+    // Capacitatea se poate schimba cu -Dcalculator.history.capacity
+    private final HistoryBuffer history = new HistoryBuffer(Integer.getInteger("calculator.history.capacity", 100_000));
+    // Vederea ListView peste buffer; se actualizează incremental la fiecare calcul
+    private final HistoryListModel historyItems = new HistoryListModel(history);
+    // Index de căutare peste tot istoricul salvat, construit la prima căutare și ținut apoi la zi de firul jurnalului
+    private final HistoryIndex historyIndex = new HistoryIndex();
+    private static final int SEARCH_LIMIT = 200;
+    private HistoryStore historyStore;
+    // Căutarea și paginile de istoric se citesc pe un fir separat; la căutare fiecare tastă crește
+    // generația, iar rezultatele vechi se ignoră
+    private java.util.concurrent.ExecutorService historyReader;
+    private final java.util.concurrent.atomic.AtomicInteger searchGeneration = new java.util.concurrent.atomic.AtomicInteger();
+    // Scrieri făcute înainte să se termine încărcarea istoricului
+    private final java.util.List<Runnable> pendingHistoryWrites = new java.util.ArrayList<>();
+    private boolean historyClearedBeforeLoad;
+    // La pornire se citesc doar ultimele HISTORY_PAGE intrări; cele mai vechi vin câte o pagină
+    // când lista ajunge aproape de capăt (doar pe firul JavaFX)
+    private static final int HISTORY_PAGE = 256;
+    private long oldestLoadedSequence;
+    private boolean olderHistoryLoading;
+    private boolean olderHistoryDone;
+    // Istoricul nu a putut fi deschis: calculele din sesiunea asta rămân doar în memorie
+    private boolean historyUnavailable;
+    // Statistici incrementale, salvate lângă istoric
+    private final HistoryStats historyStats = new HistoryStats(java.nio.file.Paths.get("calculator_history.stats"));
+    private Label statsSummaryLabel;
+    private Label statsOperatorsLabel;
+    private Label statsHoursLabel;
+    private static final java.nio.file.Path HISTORY_BASE = java.nio.file.Paths.get("calculator_history");
+    private static final java.nio.file.Path LEGACY_HISTORY_FILE = java.nio.file.Paths.get("calculator_history.txt");
+    private HistoryJournal historyJournal;
     private String currentTheme = "dark";
     private VBox historyOverlay;
+    private String historyOverlayTheme; // tema cu care a fost construit overlay-ul
     private BorderPane mainRoot;
     private GridPane buttonGrid;
     private Button lastOperatorButton = null;
     
     // Currency conversion
-    private java.util.Map<String, Double> exchangeRates = new java.util.HashMap<>();
+    // Monedele afișate primele în liste, în această ordine; restul vin alfabetic din tabel
+    private static final String[] PREFERRED_CURRENCIES = {"RON", "EUR", "USD", "GBP", "TRY"};
+    // Snapshot-ul curent, înlocuit atomic de firul serviciului; conversia îl citește o singură dată
+    private volatile RateSnapshot rates = RateSnapshot.EMPTY;
+    private RateSnapshot resolvedRates; // snapshot-ul pentru care sunt rezolvate id-urile de mai jos
+    private final ObservableList<String> currencyChoices = FXCollections.observableArrayList();
     private String selectedFromCurrency = "RON";
     private String selectedToCurrency = "EUR";
+    private int fromCurrencyId = -1;
+    private int toCurrencyId = -1;
     private Label conversionResult;
     private TextField customAmountField;
     private ComboBox<String> fromCurrencyCombo;
     private ComboBox<String> toCurrencyCombo;
     private Button refreshRatesBtn;
     private Label ratesUpdateLabel;
+    // Ultimul mesaj de stare, aplicat și etichetei create mai târziu (convertorul se construiește la cerere)
+    private String ratesStatus = "Încărcare rate...";
+    private Label ratesSummaryLabel; // cursurile față de RON din overlay-ul de conversie
+    private Label ratesDateLabel;
+    private TextField overlayAmountInput; // suma din overlay-ul de conversie, repreîncărcată la fiecare deschidere
+    private Label overlayResultLabel;
+    private ExchangeRateService rateService;
+    private static final java.nio.file.Path RATES_CACHE_FILE = java.nio.file.Paths.get("calculator_rates.cache");
+    private final StringBuilder conversionText = new StringBuilder(64);
 
     @Override
     public void start(Stage primaryStage) {
+        StartupMetrics.mark("toolkit ready (gui)");
+        logic.setCalculationListener(this::onCalculation);
         display.setFont(Font.font("Segoe UI", 72));
         display.setAlignment(Pos.CENTER_RIGHT);
         display.setEditable(false);
@@ -56,6 +97,12 @@ public class CalculatorApp extends Application {
         display.setFocusTraversable(false);
         display.setOpacity(1.0);
 
+        previewLabel.setFont(Font.font("Segoe UI", 20));
+        previewLabel.setTextFill(Color.web(getThemeColor("display_text")));
+        previewLabel.setMaxWidth(360);
+        previewLabel.setAlignment(Pos.CENTER_RIGHT);
+        previewLabel.setMinHeight(24);
+
         // Buton hamburger menu
         Button menuButton = createMenuButton();
         
@@ -69,7 +116,7 @@ public class CalculatorApp extends Application {
         buttonGrid.setAlignment(Pos.CENTER);
         buttonGrid.setMaxWidth(360);
 
-        VBox mainPanel = new VBox(18, header, display, buttonGrid);
+        VBox mainPanel = new VBox(18, header, display, previewLabel, buttonGrid);
         mainPanel.setAlignment(Pos.CENTER);
         mainPanel.setPadding(new Insets(0));
         mainPanel.setStyle("-fx-background-color: transparent;");
@@ -87,176 +134,252 @@ public class CalculatorApp extends Application {
         BorderPane.setAlignment(copyright, Pos.CENTER);
         mainRoot.setStyle(getBackgroundStyle());
 
-        // Overlay pentru istoric (inițial ascuns)
-        historyOverlay = createHistoryOverlay();
-        historyOverlay.setVisible(false);
-
+        // Primul cadru conține doar display-ul și butoanele; overlay-ul (istoric, conversie, teme)
+        // se construiește la prima deschidere a meniului
         StackPane root = new StackPane();
-        root.getChildren().addAll(mainRoot, historyOverlay);
+        root.getChildren().add(mainRoot);
 
         Scene scene = new Scene(root, 420, 620);
+        setupKeyboardSupport(scene);
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                StartupMetrics.mark("first frame (gui)");
+                // Interactiv = firul JavaFX a terminat primul cadru și poate procesa input
+                javafx.application.Platform.runLater(() -> StartupMetrics.mark("interactive (gui)"));
+            }
+        });
         primaryStage.setTitle("Modern Calculator");
         primaryStage.setScene(scene);
         primaryStage.show();
-
-        setupKeyboardSupport(scene);
         
-        // Initialize exchange rates with live API
+        // Ratele implicite, apoi cele din cache (în fundal); API-ul doar dacă au expirat
         initializeExchangeRates();
         
-        // Load persistent history
-        loadHistory();
+        // Istoricul se încarcă în fundal
+        loadHistoryAsync();
     }
     
-    private void loadHistory() {
-        try {
-            java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader("calculator_history.txt"));
-            String line;
-            while ((line = reader.readLine()) != null && history.size() < 100) {
-                history.add(line);
+    private void loadHistoryAsync() {
+        Thread loader = new Thread(() -> {
+            HistoryStore opened = null;
+            try {
+                HistoryStore store = HistoryStore.open(HISTORY_BASE);
+                opened = store;
+                if (store.getDiscardedOnOpen() > 0) {
+                    System.err.println("History: dropped " + store.getDiscardedOnOpen() + " incomplete entries after an unclean shutdown");
+                }
+                if (store.size() == 0) store.importText(LEGACY_HISTORY_FILE);
+                // Doar prima pagină; restul se citește când lista ajunge la ea
+                long first = store.firstSequence();
+                long end = first + store.size();
+                long from = Math.max(first, end - Math.min(HISTORY_PAGE, history.capacity()));
+                String[] expressions = new String[(int) (end - from)];
+                double[] results = new double[expressions.length];
+                int n = store.readRange(from, end, expressions, results);
+                String[] loadedExpressions = java.util.Arrays.copyOf(expressions, n);
+                double[] loadedResults = java.util.Arrays.copyOf(results, n);
+                javafx.application.Platform.runLater(() -> onHistoryLoaded(store, from, from == first, loadedExpressions, loadedResults));
+            } catch (java.io.IOException | RuntimeException e) {
+                System.err.println("Could not open history: " + e.getMessage());
+                if (opened != null) {
+                    try {
+                        opened.close();
+                    } catch (java.io.IOException closeError) {
+                        // istoricul e deja inutilizabil
+                    }
+                }
+                javafx.application.Platform.runLater(this::onHistoryUnavailable);
             }
-            reader.close();
-        } catch (Exception e) {
-            // No history file yet, that's fine
-        }
+        }, "history-loader");
+        loader.setDaemon(true);
+        loader.start();
     }
-    
-    private void saveHistoryToFile() {
-        try {
-            java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter("calculator_history.txt"));
-            for (String calculation : history) {
-                writer.println(calculation);
+
+    private void onHistoryLoaded(HistoryStore store, long from, boolean complete, String[] expressions, double[] results) {
+        // Intrările de pe disc sunt mai vechi decât calculele făcute între timp
+        if (!historyClearedBeforeLoad) historyItems.addOlder(expressions, results);
+        historyStore = store;
+        oldestLoadedSequence = from;
+        olderHistoryDone = complete || historyClearedBeforeLoad;
+        historyItems.setOlderRequest(this::requestOlderHistory);
+        // Indexul se construiește abia la prima căutare, pe firul de citire, nu la fiecare pornire
+        historyJournal = HistoryJournal.open(store, historyIndex, historyStats);
+        for (Runnable write : pendingHistoryWrites) write.run();
+        pendingHistoryWrites.clear();
+        StartupMetrics.mark("history loaded (gui)");
+    }
+
+    // Citește în fundal pagina de dinaintea celei mai vechi intrări din listă
+    private void requestOlderHistory() {
+        if (olderHistoryLoading || olderHistoryDone) return;
+        if (history.size() >= history.capacity()) {
+            olderHistoryDone = true; // în memorie nu mai încape nimic
+            return;
+        }
+        olderHistoryLoading = true;
+        HistoryStore store = historyStore;
+        long to = oldestLoadedSequence;
+        historyReader().execute(() -> {
+            long first = store.firstSequence();
+            long from = Math.max(first, to - HISTORY_PAGE);
+            String[] expressions = new String[(int) Math.max(0, to - from)];
+            double[] results = new double[expressions.length];
+            int n;
+            try {
+                n = store.readRange(from, to, expressions, results);
+            } catch (RuntimeException e) {
+                System.err.println("Could not read older history: " + e.getMessage());
+                n = -1;
             }
-            writer.close();
-        } catch (Exception e) {
-            System.err.println("Could not save history: " + e.getMessage());
+            int read = n;
+            javafx.application.Platform.runLater(() -> {
+                olderHistoryLoading = false;
+                if (olderHistoryDone) return; // istoricul a fost golit între timp
+                if (read < 0) {
+                    olderHistoryDone = true;
+                    return;
+                }
+                oldestLoadedSequence = from;
+                olderHistoryDone = from <= first;
+                historyItems.addOlder(java.util.Arrays.copyOf(expressions, read), java.util.Arrays.copyOf(results, read));
+            });
+        });
+    }
+
+    private java.util.concurrent.ExecutorService historyReader() {
+        if (historyReader == null) {
+            historyReader = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "history-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+        return historyReader;
+    }
+
+    private void onHistoryUnavailable() {
+        historyUnavailable = true;
+        if (!pendingHistoryWrites.isEmpty()) {
+            System.err.println("History will not be saved in this session; discarded " + pendingHistoryWrites.size() + " pending writes");
+        }
+        pendingHistoryWrites.clear();
     }
 
     private void clearHistory() {
-        history.clear();
-        saveHistoryToFile();
+        olderHistoryDone = true;
+        historyItems.clear();
+        if (historyJournal != null) {
+            historyJournal.clear();
+        } else {
+            historyClearedBeforeLoad = true;
+            pendingHistoryWrites.clear();
+            if (!historyUnavailable) pendingHistoryWrites.add(() -> historyJournal.clear());
+        }
     }
 
-    private void initializeExchangeRates() {
-        // Set default rates (will be updated from API)
-        exchangeRates.put("EUR", 1.0);
-        exchangeRates.put("USD", 1.09);
-        exchangeRates.put("RON", 4.97);
-        exchangeRates.put("GBP", 0.85);
-        exchangeRates.put("TRY", 37.15);
-        
-        // Load rates from API in background
-        loadLiveExchangeRates();
+    @Override
+    public void stop() {
+        // Scrie pe disc intrările rămase în coadă
+        if (historyJournal != null) {
+            historyJournal.close();
+        } else if (!pendingHistoryWrites.isEmpty()) {
+            System.err.println("Could not save " + pendingHistoryWrites.size() + " history writes: history was still loading");
+        }
+        if (rateService != null) rateService.shutdown();
+        if (historyReader != null) historyReader.shutdownNow();
     }
-    
-    private void loadLiveExchangeRates() {
-        Task<Void> loadRatesTask = new Task<Void>() {
-            @Override
-            protected Void call() throws Exception {
-                try {
-                    // Using free API from exchangerate-api.com
-                    HttpClient client = HttpClient.newHttpClient();
-                    HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create("https://api.exchangerate-api.com/v4/latest/EUR"))
-                        .GET()
-                        .build();
-                    
-                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-                    
-                    if (response.statusCode() == 200) {
-                        parseExchangeRates(response.body());
-                        updateStatusMessage("Rate live: " + LocalDate.now());
-                    } else {
-                        updateStatusMessage("Eroare API - rate offline");
-                    }
-                } catch (Exception e) {
-                    updateStatusMessage("Offline - rate din cache");
-                    System.err.println("Exchange rate API error: " + e.getMessage());
+
+    private void initializeExchangeRates() {
+        // Ratele implicite, HttpClient-ul și scheduler-ul se construiesc în fundal, nu în start()
+        Thread init = new Thread(() -> {
+            // Set default rates (used until the cache or the API answers)
+            RateSnapshot defaults = new RateSnapshot(new RateTable.Builder()
+                .put("EUR", 1.0)
+                .put("USD", 1.09)
+                .put("RON", 4.97)
+                .put("GBP", 0.85)
+                .put("TRY", 37.15)
+                .build(), 0, 0);
+            
+            // Ratele salvate se citesc în fundal; rețeaua e folosită doar când au expirat
+            ExchangeRateService service = ExchangeRateService.fromSystemProperties(RATES_CACHE_FILE, new ExchangeRateService.Listener() {
+                @Override
+                public void onRates(RateSnapshot snapshot, boolean live) {
+                    // Publicare imediată; firul JavaFX vede noul set la următoarea conversie
+                    rates = snapshot;
+                    String date = java.time.Instant.ofEpochMilli(snapshot.getFetchedAt()).atZone(java.time.ZoneId.systemDefault()).toLocalDate().toString();
+                    javafx.application.Platform.runLater(() -> {
+                        addCurrencyChoices(snapshot.getTable());
+                        updateRatesSummary();
+                        updateStatusMessage((live ? "Rate live: " : "Rate din cache: ") + date);
+                        if (conversionResult != null && customAmountField != null && !customAmountField.getText().trim().isEmpty()) {
+                            convertCurrentResult();
+                        }
+                    });
                 }
-                return null;
-            }
-        };
-        
-        Thread apiThread = new Thread(loadRatesTask);
-        apiThread.setDaemon(true);
-        apiThread.start();
+
+                @Override
+                public void onError(Exception error, long retryInMillis) {
+                    System.err.println("Exchange rate API error: " + error.getMessage() + " (retry in " + retryInMillis / 1000 + " s)");
+                    boolean cached = !rateService.current().isEmpty();
+                    updateStatusMessage(cached ? "Offline - rate din cache" : "Offline - rate implicite");
+                }
+            });
+            // Serviciul pornește abia după ce ratele implicite sunt publicate, ca ele să nu le
+            // înlocuiască pe cele din cache
+            javafx.application.Platform.runLater(() -> {
+                rates = defaults;
+                addCurrencyChoices(defaults.getTable());
+                updateRatesSummary();
+                convertCurrentResult();
+                rateService = service;
+                service.start();
+            });
+        }, "rates-init");
+        init.setDaemon(true);
+        init.start();
     }
     
-    private void parseExchangeRates(String jsonResponse) {
-        try {
-            // Simple JSON parsing pentru rate-uri
-            if (jsonResponse.contains("\"rates\"")) {
-                String ratesSection = jsonResponse.substring(jsonResponse.indexOf("\"rates\""));
-                
-                // Parse USD
-                if (ratesSection.contains("\"USD\"")) {
-                    String usdValue = extractRate(ratesSection, "USD");
-                    if (usdValue != null) exchangeRates.put("USD", Double.parseDouble(usdValue));
-                }
-                
-                // Parse RON
-                if (ratesSection.contains("\"RON\"")) {
-                    String ronValue = extractRate(ratesSection, "RON");
-                    if (ronValue != null) exchangeRates.put("RON", Double.parseDouble(ronValue));
-                }
-                
-                // Parse GBP
-                if (ratesSection.contains("\"GBP\"")) {
-                    String gbpValue = extractRate(ratesSection, "GBP");
-                    if (gbpValue != null) exchangeRates.put("GBP", Double.parseDouble(gbpValue));
-                }
-                
-                // Parse TRY
-                if (ratesSection.contains("\"TRY\"")) {
-                    String tryValue = extractRate(ratesSection, "TRY");
-                    if (tryValue != null) exchangeRates.put("TRY", Double.parseDouble(tryValue));
-                }
-                
-                // Actualizează UI cu ratele noi
-                javafx.application.Platform.runLater(() -> {
-                    if (conversionResult != null && customAmountField != null && !customAmountField.getText().trim().isEmpty()) {
-                        convertCurrentResult();
-                    }
-                });
-                
-                System.out.println("Exchange rates updated successfully!");
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing exchange rates: " + e.getMessage());
+    // Doar pe firul JavaFX: listele de monede se completează cu cele noi din tabel
+    private void addCurrencyChoices(RateTable table) {
+        java.util.Set<String> present = new java.util.HashSet<>(currencyChoices);
+        for (String code : PREFERRED_CURRENCIES) {
+            if (table.id(code) >= 0 && present.add(code)) currencyChoices.add(code);
+        }
+        // Se adaugă doar monedele noi, ca selecția din liste să nu se piardă
+        for (int id = 0; id < table.size(); id++) {
+            if (present.add(table.code(id))) currencyChoices.add(table.code(id));
         }
     }
     
-    private String extractRate(String json, String currency) {
-        try {
-            String pattern = "\"" + currency + "\":";
-            int startIndex = json.indexOf(pattern);
-            if (startIndex == -1) return null;
-            
-            startIndex += pattern.length();
-            int endIndex = json.indexOf(",", startIndex);
-            if (endIndex == -1) endIndex = json.indexOf("}", startIndex);
-            
-            return json.substring(startIndex, endIndex).trim();
-        } catch (Exception e) {
-            return null;
-        }
+    // Id-urile se rezolvă din nou la următoarea conversie (la selecție sau la un snapshot nou), nu la fiecare
+    private void selectCurrencies(String from, String to) {
+        selectedFromCurrency = from;
+        selectedToCurrency = to;
+        resolvedRates = null;
     }
     
     private void updateStatusMessage(String message) {
         javafx.application.Platform.runLater(() -> {
+            ratesStatus = message;
             if (ratesUpdateLabel != null) {
                 ratesUpdateLabel.setText(message);
             }
         });
     }
     
-    private void saveHistory() {
-        // Keep only last 100 calculations
-        if (history.size() > 100) {
-            history.remove(0);
+    private void saveHistory(String equation, double result) {
+        // Bufferul din memorie elimină singur cea mai veche intrare când e plin
+        historyItems.add(equation, result);
+        // Scrierea pe disc se face în fundal, firul JavaFX nu așteaptă după fișier
+        long timestamp = System.currentTimeMillis();
+        if (historyJournal != null) {
+            historyJournal.append(equation, result, timestamp);
+        } else if (!historyUnavailable) {
+            pendingHistoryWrites.add(() -> historyJournal.append(equation, result, timestamp));
         }
-        saveHistoryToFile();
     }
     
     private void convertCurrentResult() {
@@ -278,12 +401,11 @@ public class CalculatorApp extends Application {
                 return;
             }
             
-            double amount = Double.parseDouble(amountText);
-            double converted = convertCurrency(amount, selectedFromCurrency, selectedToCurrency);
+            double amount = NumberParser.parseDouble(amountText);
+            RateSnapshot.Conversion conversion = convertCurrency(amount);
             
-            String formattedResult = String.format("%.2f %s = %.2f %s", 
-                amount, selectedFromCurrency, converted, selectedToCurrency);
-            conversionResult.setText("💰 " + formattedResult);
+            conversionResult.setText(formatConversion("💰 ", conversion));
+            conversionResult.setTooltip(new Tooltip(describeRates(conversion)));
             
         } catch (NumberFormatException e) {
             conversionResult.setText("❌ Sumă invalidă pentru conversie");
@@ -292,6 +414,23 @@ public class CalculatorApp extends Application {
         }
     }
     
+    // "12.50 RON = 2.51 EUR", scris într-un StringBuilder refolosit în loc de String.format
+    private String formatConversion(String prefix, RateSnapshot.Conversion conversion) {
+        conversionText.setLength(0);
+        conversionText.append(prefix);
+        NumberFormatter.appendMoney(conversionText, conversion.amount).append(' ').append(conversion.from).append(" = ");
+        NumberFormatter.appendMoney(conversionText, conversion.result).append(' ').append(conversion.to);
+        return conversionText.toString();
+    }
+    
+    // Cu ce cursuri s-a făcut conversia: versiunea snapshot-ului și momentul descărcării
+    private String describeRates(RateSnapshot.Conversion conversion) {
+        if (conversion.fetchedAt == 0) return "Cursuri implicite (v" + conversion.version + ")";
+        return "Cursuri v" + conversion.version + " din " + java.time.Instant.ofEpochMilli(conversion.fetchedAt)
+            .atZone(java.time.ZoneId.systemDefault())
+            .format(java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+    }
+    
     private VBox createCurrencyConverter() {
         VBox converterBox = new VBox(15);
         converterBox.setAlignment(Pos.CENTER);
@@ -353,12 +492,12 @@ public class CalculatorApp extends Application {
         fromLabel.setFont(Font.font("Segoe UI", 11));
         
         fromCurrencyCombo = new ComboBox<>();
-        fromCurrencyCombo.getItems().addAll("EUR", "USD", "RON", "GBP", "TRY");
+        fromCurrencyCombo.setItems(currencyChoices);
         fromCurrencyCombo.setValue(selectedFromCurrency);
         fromCurrencyCombo.setPrefWidth(70);
         fromCurrencyCombo.setStyle(String.format("-fx-background-color: %s; -fx-text-fill: %s; -fx-background-radius: 6;", getThemeColor("button_normal"), getThemeColor("button_text")));
         fromCurrencyCombo.setOnAction(e -> {
-            selectedFromCurrency = fromCurrencyCombo.getValue();
+            selectCurrencies(fromCurrencyCombo.getValue(), selectedToCurrency);
             convertCurrentResult();
         });
         
@@ -370,9 +509,7 @@ public class CalculatorApp extends Application {
         swapBtn.setPrefSize(35, 35);
         swapBtn.setStyle(String.format("-fx-background-color: %s; -fx-text-fill: %s; -fx-background-radius: 18;", getThemeColor("button_clear"), getThemeColor("button_text_operator")));
         swapBtn.setOnAction(e -> {
-            String temp = selectedFromCurrency;
-            selectedFromCurrency = selectedToCurrency;
-            selectedToCurrency = temp;
+            selectCurrencies(selectedToCurrency, selectedFromCurrency);
             fromCurrencyCombo.setValue(selectedFromCurrency);
             toCurrencyCombo.setValue(selectedToCurrency);
             convertCurrentResult();
@@ -386,12 +523,12 @@ public class CalculatorApp extends Application {
         toLabel.setFont(Font.font("Segoe UI", 11));
         
         toCurrencyCombo = new ComboBox<>();
-        toCurrencyCombo.getItems().addAll("EUR", "USD", "RON", "GBP", "TRY");
+        toCurrencyCombo.setItems(currencyChoices);
         toCurrencyCombo.setValue(selectedToCurrency);
         toCurrencyCombo.setPrefWidth(70);
         toCurrencyCombo.setStyle(String.format("-fx-background-color: %s; -fx-text-fill: %s; -fx-background-radius: 6;", getThemeColor("button_normal"), getThemeColor("button_text")));
         toCurrencyCombo.setOnAction(e -> {
-            selectedToCurrency = toCurrencyCombo.getValue();
+            selectCurrencies(selectedFromCurrency, toCurrencyCombo.getValue());
             convertCurrentResult();
         });
         
@@ -420,26 +557,17 @@ public class CalculatorApp extends Application {
         refreshRatesBtn.setFont(Font.font("Segoe UI", 10));
         refreshRatesBtn.setStyle(String.format("-fx-background-color: %s; -fx-text-fill: %s; -fx-background-radius: 6; -fx-padding: 4 8;", getThemeColor("button_clear"), getThemeColor("button_text_operator")));
         refreshRatesBtn.setOnAction(e -> {
+            if (rateService == null) return; // serviciul încă se pornește
             refreshRatesBtn.setText("⏳ Actualizez...");
             refreshRatesBtn.setDisable(true);
-            loadLiveExchangeRates();
-            
-            // Re-enable button after 3 seconds
-            Task<Void> enableTask = new Task<Void>() {
-                @Override
-                protected Void call() throws Exception {
-                    Thread.sleep(3000);
-                    javafx.application.Platform.runLater(() -> {
-                        refreshRatesBtn.setText("🔄 Actualizează");
-                        refreshRatesBtn.setDisable(false);
-                    });
-                    return null;
-                }
-            };
-            new Thread(enableTask).start();
+            // Butonul revine când cererea (eventual una deja în curs) s-a terminat
+            rateService.refresh().whenComplete((rates, error) -> javafx.application.Platform.runLater(() -> {
+                refreshRatesBtn.setText("🔄 Actualizează");
+                refreshRatesBtn.setDisable(false);
+            }));
         });
         
-        ratesUpdateLabel = new Label("Încărcare rate...");
+        ratesUpdateLabel = new Label(ratesStatus);
         ratesUpdateLabel.setTextFill(Color.web(getThemeColor("update_text")));
         ratesUpdateLabel.setFont(Font.font("Segoe UI", 9));
         
@@ -454,19 +582,41 @@ public class CalculatorApp extends Application {
         return converterBox;
     }
     
-    private double convertCurrency(double amount, String fromCurrency, String toCurrency) {
-        if (fromCurrency.equals(toCurrency)) {
-            return amount;
+    // Între monedele selectate: o citire din matricea de cursuri încrucișate și o înmulțire
+    // Snapshot-ul se citește o singură dată, deci cursurile și versiunea raportată sunt din același set
+    private RateSnapshot.Conversion convertCurrency(double amount) {
+        RateSnapshot snapshot = rates;
+        if (snapshot != resolvedRates) {
+            fromCurrencyId = snapshot.getTable().id(selectedFromCurrency);
+            toCurrencyId = snapshot.getTable().id(selectedToCurrency);
+            resolvedRates = snapshot;
         }
-        
-        // Check if exchange rates are loaded
-        if (exchangeRates.isEmpty() || !exchangeRates.containsKey(fromCurrency) || !exchangeRates.containsKey(toCurrency)) {
+        if (fromCurrencyId < 0 || toCurrencyId < 0) {
             throw new RuntimeException("Rate de schimb nu sunt încărcate");
         }
-        
-        // Convert to EUR first, then to target currency
-        double inEUR = amount / exchangeRates.get(fromCurrency);
-        return inEUR * exchangeRates.get(toCurrency);
+        return snapshot.convert(amount, fromCurrencyId, toCurrencyId);
+    }
+    
+    // Câți RON face o unitate din moneda dată (NaN dacă una lipsește din tabel)
+    private double ronPer(String code) {
+        RateTable table = rates.getTable();
+        int from = table.id(code);
+        int to = table.id("RON");
+        return from >= 0 && to >= 0 ? table.crossRate(from, to) : Double.NaN;
+    }
+    
+    // Doar pe firul JavaFX; overlay-ul de conversie e păstrat, deci etichetele se actualizează la fiecare set de rate
+    private void updateRatesSummary() {
+        if (ratesSummaryLabel == null) return;
+        ratesSummaryLabel.setText(String.format(
+            "1EUR=%.2fRON • 1USD=%.2fRON • 1GBP=%.2fRON • 1TRY=%.3fRON", 
+            ronPer("EUR"), ronPer("USD"), ronPer("GBP"), ronPer("TRY")
+        ));
+        long fetchedAt = rates.getFetchedAt();
+        java.time.LocalDate date = fetchedAt > 0
+            ? java.time.Instant.ofEpochMilli(fetchedAt).atZone(java.time.ZoneId.systemDefault()).toLocalDate()
+            : java.time.LocalDate.now();
+        ratesDateLabel.setText("Actualizat: " + date.format(java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy")));
     }
 
     // Metode pentru teme
@@ -700,6 +850,9 @@ public class CalculatorApp extends Application {
         // 1. ISTORIC SECTION (sus)
         VBox historySection = createHistorySection();
         
+        // Statistici despre istoric
+        VBox statsSection = createStatsSection();
+        
         // 2. CONVERSIE DETALIATĂ (cu rate live)
         VBox conversionSection = createDetailedCurrencySection();
         
@@ -773,11 +926,12 @@ public class CalculatorApp extends Application {
         
         // Previne schimbarea fonturilor pe toate secțiunile din meniu
         historySection.setOnMouseClicked(e -> e.consume());
+        statsSection.setOnMouseClicked(e -> e.consume());
         conversionSection.setOnMouseClicked(e -> e.consume());
         themeSection.setOnMouseClicked(e -> e.consume());
         
         // Adaugă secțiunile în scroll content
-        scrollContent.getChildren().addAll(historySection, conversionSection, themeSection);
+        scrollContent.getChildren().addAll(historySection, statsSection, conversionSection, themeSection);
         
         // Creează ScrollPane modern
         ScrollPane scrollPane = new ScrollPane(scrollContent);
@@ -828,6 +982,73 @@ public class CalculatorApp extends Application {
         return mainContainer;
     }
     
+    private VBox createStatsSection() {
+        VBox statsSection = new VBox(6);
+        statsSection.setAlignment(Pos.CENTER);
+        
+        Label statsTitle = new Label("📊 Statistici");
+        statsTitle.setFont(Font.font("Segoe UI", 16));
+        statsTitle.setTextFill(Color.web(getThemeColor("button_text")));
+        statsTitle.setStyle("-fx-font-weight: bold;");
+        
+        statsSummaryLabel = new Label();
+        statsOperatorsLabel = new Label();
+        statsHoursLabel = new Label();
+        for (Label label : new Label[] {statsSummaryLabel, statsOperatorsLabel, statsHoursLabel}) {
+            label.setFont(Font.font("Segoe UI", 11));
+            label.setTextFill(Color.WHITE);
+            label.setWrapText(true);
+            label.setMaxWidth(340);
+        }
+        
+        VBox statsBox = new VBox(6, statsSummaryLabel, statsOperatorsLabel, statsHoursLabel);
+        statsBox.setAlignment(Pos.CENTER_LEFT);
+        statsBox.setPadding(new Insets(12));
+        statsBox.setStyle(String.format("-fx-background-color: rgba(255,255,255,0.1); -fx-background-radius: 8; -fx-border-color: %s; -fx-border-width: 1; -fx-border-radius: 8;", getThemeColor("button_operator")));
+        
+        statsSection.getChildren().addAll(statsTitle, statsBox);
+        updateStatsPanel();
+        return statsSection;
+    }
+    
+    // Citește statisticile curente (actualizate de firul jurnalului) în panou
+    private void updateStatsPanel() {
+        if (statsSummaryLabel == null) return;
+        HistoryStats.Snapshot stats = historyStats.snapshot();
+        if (stats.count == 0) {
+            statsSummaryLabel.setText("Nu există calcule în istoric");
+            statsOperatorsLabel.setText("");
+            statsHoursLabel.setText("");
+            return;
+        }
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("Calcule: ").append(stats.count);
+        if (stats.finiteCount > 0) {
+            sb.append("   Sumă: ").append(CalculatorLogic.formatResult(stats.sum))
+              .append("\nMedie: ").append(CalculatorLogic.formatResult(stats.mean()))
+              .append("   Min: ").append(CalculatorLogic.formatResult(stats.min))
+              .append("   Max: ").append(CalculatorLogic.formatResult(stats.max));
+        }
+        statsSummaryLabel.setText(sb.toString());
+        
+        sb.setLength(0);
+        sb.append("Operatori:");
+        for (int i = 0; i < HistoryStats.OPERATORS.length(); i++) {
+            sb.append("  ").append(HistoryStats.OPERATORS.charAt(i)).append(' ').append(stats.operatorCounts[i]);
+        }
+        statsOperatorsLabel.setText(sb.toString());
+        
+        sb.setLength(0);
+        sb.append("Ore aglomerate:");
+        for (int rank = 0; rank < 3; rank++) {
+            int hour = stats.busiestHour(rank);
+            if (hour < 0) break;
+            sb.append(rank == 0 ? " " : ", ").append(String.format("%02d:00", hour))
+              .append(" (").append(stats.hourCounts[hour]).append(')');
+        }
+        statsHoursLabel.setText(sb.toString());
+    }
+    
     private VBox createHistorySection() {
         VBox historySection = new VBox(10);
         historySection.setAlignment(Pos.CENTER);
@@ -846,49 +1067,48 @@ public class CalculatorApp extends Application {
         historyBox.setMinHeight(200);
         historyBox.setStyle(String.format("-fx-background-color: rgba(255,255,255,0.1); -fx-background-radius: 8; -fx-border-color: %s; -fx-border-width: 1; -fx-border-radius: 8;", getThemeColor("button_operator")));
         
-        // ScrollPane pentru istoric
-        ScrollPane historyScroll = new ScrollPane();
-        historyScroll.setStyle("-fx-background: transparent; -fx-background-color: transparent;");
-        historyScroll.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
-        historyScroll.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
-        historyScroll.setPrefHeight(140);
-        historyScroll.setMaxHeight(140);
-        
-        VBox historyList = new VBox(4);
-        historyList.setAlignment(Pos.CENTER);
-        historyList.setPadding(new Insets(5));
-        
-        if (history.isEmpty()) {
-            Label noHistory = new Label("Nu există calcule în istoric");
-            noHistory.setFont(Font.font("Segoe UI", 12));
-            noHistory.setTextFill(Color.LIGHTGRAY);
-            historyList.getChildren().add(noHistory);
-        } else {
-            // Afișează toate calculele din istoric (reversed order)
-            for (int i = history.size() - 1; i >= 0; i--) {
-                Label historyItem = new Label(history.get(i));
+        // ListView virtualizat: există noduri doar pentru rândurile vizibile, refolosite la scroll
+        ListView<String> historyList = new ListView<>(historyItems);
+        historyList.setPrefHeight(140);
+        historyList.setMaxHeight(140);
+        historyList.setFocusTraversable(false);
+        historyList.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent; -fx-background-insets: 0; -fx-padding: 5;");
+        Label noHistory = new Label("Nu există calcule în istoric");
+        noHistory.setFont(Font.font("Segoe UI", 12));
+        noHistory.setTextFill(Color.LIGHTGRAY);
+        historyList.setPlaceholder(noHistory);
+        // Căutare: text din expresie (ex. "1250*") sau "=X" pentru rezultatul X
+        TextField searchField = new TextField();
+        searchField.setPromptText("Caută (ex. 1250* sau =42)");
+        searchField.setFont(Font.font("Segoe UI", 11));
+        searchField.setStyle("-fx-background-color: rgba(255,255,255,0.9); -fx-background-radius: 5;");
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchHistory(newText, historyList));
+        historyList.setCellFactory(list -> new ListCell<String>() {
+            // Stilul se setează o singură dată per celulă, nu per intrare
+            private final Label historyItem = new Label();
+            {
                 historyItem.setFont(Font.font("Segoe UI", 11));
                 historyItem.setTextFill(Color.WHITE);
                 historyItem.setStyle("-fx-background-color: rgba(255,255,255,0.15); -fx-background-radius: 4; -fx-padding: 4 8;");
-                historyList.getChildren().add(historyItem);
+                setAlignment(Pos.CENTER);
+                setStyle("-fx-background-color: transparent; -fx-padding: 2 0;");
             }
-        }
-        
-        historyScroll.setContent(historyList);
-        historyBox.getChildren().add(historyScroll);
+
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                historyItem.setText(item);
+                setGraphic(empty ? null : historyItem);
+            }
+        });
+        historyBox.getChildren().addAll(searchField, historyList);
         
         Button clearHistoryBtn = new Button("Șterge Istoric");
         clearHistoryBtn.setFont(Font.font("Segoe UI", 10));
         clearHistoryBtn.setStyle(String.format("-fx-background-color: %s; -fx-text-fill: %s; -fx-background-radius: 5; -fx-padding: 5 10;", getThemeColor("button_clear"), getThemeColor("button_text_operator")));
         clearHistoryBtn.setOnAction(e -> {
-            history.clear();
-            saveHistoryToFile();
-            // Refresh the history display
-            historyList.getChildren().clear();
-            Label noHistory = new Label("Nu există calcule în istoric");
-            noHistory.setFont(Font.font("Segoe UI", 12));
-            noHistory.setTextFill(Color.LIGHTGRAY);
-            historyList.getChildren().add(noHistory);
+            clearHistory();
+            searchField.clear();
         });
         
         historyBox.getChildren().add(clearHistoryBtn);
@@ -896,6 +1116,55 @@ public class CalculatorApp extends Application {
         return historySection;
     }
     
+    private void searchHistory(String query, ListView<String> historyList) {
+        int generation = searchGeneration.incrementAndGet();
+        String text = query.replace(" ", "");
+        HistoryStore store = historyStore;
+        if (text.isEmpty() || store == null) {
+            historyList.setItems(historyItems);
+            return;
+        }
+        double value = 0;
+        boolean byResult = text.startsWith("=");
+        if (byResult) {
+            try {
+                value = NumberParser.parseDouble(text.substring(1));
+            } catch (NumberFormatException e) {
+                historyList.setItems(FXCollections.observableArrayList());
+                return;
+            }
+        }
+        double searched = value;
+        // Indexul și segmentele de pe disc se citesc în fundal; firul JavaFX doar afișează rezultatul
+        historyReader().execute(() -> {
+            if (searchGeneration.get() != generation) return; // s-a tastat din nou între timp
+            java.util.List<String> matches = new java.util.ArrayList<>();
+            try {
+                long[] found;
+                if (byResult) {
+                    // 0 și -0 sunt același rezultat pentru utilizator
+                    found = searched == 0
+                        ? historyIndex.findResult(store, -0.0, 0.0, SEARCH_LIMIT)
+                        : historyIndex.findResult(store, searched, searched, SEARCH_LIMIT);
+                } else {
+                    found = historyIndex.findExpression(store, text, SEARCH_LIMIT);
+                }
+                for (long sequence : found) {
+                    HistoryStore.Entry entry = store.read(sequence);
+                    if (entry != null) {
+                        matches.add(entry.expression + " = " + CalculatorLogic.formatResult(entry.result));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // ex. un segment sigilat care nu se mai poate citi
+                System.err.println("History search failed: " + e.getMessage());
+            }
+            javafx.application.Platform.runLater(() -> {
+                if (searchGeneration.get() == generation) historyList.setItems(FXCollections.observableArrayList(matches));
+            });
+        });
+    }
+    
     private VBox createDetailedCurrencySection() {
         VBox conversionSection = new VBox(15);
         conversionSection.setAlignment(Pos.CENTER);
@@ -906,22 +1175,19 @@ public class CalculatorApp extends Application {
         conversionTitle.setStyle("-fx-font-weight: bold;");
         
         // Data actualizării
-        Label updateDate = new Label("Actualizat: " + java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy")));
+        Label updateDate = new Label();
         updateDate.setFont(Font.font("Segoe UI", 10));
         updateDate.setTextFill(Color.web(getThemeColor("update_text")));
         updateDate.setStyle("-fx-font-style: italic;");
         
         // Rate de schimb compacte pe o singură linie cu separatori
-        Label ratesLabel = new Label(String.format(
-            "1EUR=%.2fRON • 1USD=%.2fRON • 1GBP=%.2fRON • 1TRY=%.3fRON", 
-            exchangeRates.getOrDefault("RON", 4.97),
-            exchangeRates.getOrDefault("RON", 4.97) / exchangeRates.getOrDefault("USD", 1.09),
-            exchangeRates.getOrDefault("RON", 4.97) / exchangeRates.getOrDefault("GBP", 0.85),
-            exchangeRates.getOrDefault("RON", 4.97) / exchangeRates.getOrDefault("TRY", 37.15)
-        ));
+        Label ratesLabel = new Label();
         ratesLabel.setFont(Font.font("Segoe UI", 11));
         ratesLabel.setTextFill(Color.web(getThemeColor("rates_text")));
         ratesLabel.setAlignment(Pos.CENTER);
+        ratesSummaryLabel = ratesLabel;
+        ratesDateLabel = updateDate;
+        updateRatesSummary();
         
         // Input pentru conversie (preîncărcat cu suma din calculator)
         VBox inputBox = new VBox(10);
@@ -933,17 +1199,7 @@ public class CalculatorApp extends Application {
         amountInput.setPromptText("Introdu suma pentru conversie...");
         amountInput.setPrefWidth(200);
         amountInput.setStyle(String.format("-fx-background-color: %s; -fx-text-fill: %s; -fx-background-radius: 6; -fx-padding: 8;", getThemeColor("button_normal"), getThemeColor("button_text")));
-        
-        // Preîncarcă cu suma din calculator dacă există
-        String currentDisplayText = display.getText().trim();
-        if (!currentDisplayText.equals("0") && !currentDisplayText.isEmpty()) {
-            try {
-                Double.parseDouble(currentDisplayText); // Verifică dacă e număr valid
-                amountInput.setText(currentDisplayText);
-            } catch (NumberFormatException e) {
-                // Nu e număr valid, lasă gol
-            }
-        }
+        overlayAmountInput = amountInput;
         
         // Conversie interactivă cu RON->EUR ca default
         HBox conversionBox = new HBox(15);
@@ -958,11 +1214,12 @@ public class CalculatorApp extends Application {
         resultLabel.setMaxWidth(250);
         String bgColor = currentTheme.equals("light") ? "#adb5bd" : "rgba(0,0,0,0.4)";
         resultLabel.setStyle(String.format("-fx-background-color: %s; -fx-background-radius: 6; -fx-padding: 10; -fx-border-color: %s; -fx-border-width: 1; -fx-border-radius: 6;", bgColor, getThemeColor("button_operator")));
+        overlayResultLabel = resultLabel;
         
         ComboBox<String> fromCurrency = new ComboBox<>();
-        fromCurrency.getItems().addAll("RON", "EUR", "USD", "GBP", "TRY");
+        fromCurrency.setItems(currencyChoices);
         fromCurrency.setValue("RON"); // Default RON
-        selectedFromCurrency = "RON";
+        selectCurrencies("RON", selectedToCurrency);
         fromCurrency.setPrefWidth(70);
         
         // Stilizare originală cu text negru pentru vizibilitate
@@ -978,7 +1235,7 @@ public class CalculatorApp extends Application {
         });
         
         fromCurrency.setOnAction(e -> {
-            selectedFromCurrency = fromCurrency.getValue();
+            selectCurrencies(fromCurrency.getValue(), selectedToCurrency);
             if (!amountInput.getText().trim().isEmpty()) {
                 convertAndDisplay(amountInput, resultLabel);
             }
@@ -989,9 +1246,9 @@ public class CalculatorApp extends Application {
         arrowLabel.setFont(Font.font("Segoe UI", 16));
         
         ComboBox<String> toCurrency = new ComboBox<>();
-        toCurrency.getItems().addAll("RON", "EUR", "USD", "GBP", "TRY");
+        toCurrency.setItems(currencyChoices);
         toCurrency.setValue("EUR"); // Default EUR
-        selectedToCurrency = "EUR";
+        selectCurrencies(selectedFromCurrency, "EUR");
         toCurrency.setPrefWidth(70);
         
         // Stilizare originală cu text negru pentru vizibilitate
@@ -1007,7 +1264,7 @@ public class CalculatorApp extends Application {
         });
         
         toCurrency.setOnAction(e -> {
-            selectedToCurrency = toCurrency.getValue();
+            selectCurrencies(selectedFromCurrency, toCurrency.getValue());
             if (!amountInput.getText().trim().isEmpty()) {
                 convertAndDisplay(amountInput, resultLabel);
             }
@@ -1026,7 +1283,7 @@ public class CalculatorApp extends Application {
             String newAmount = display.getText().trim();
             if (!newAmount.equals("0") && !newAmount.isEmpty()) {
                 try {
-                    Double.parseDouble(newAmount); // Verifică dacă e număr valid
+                    NumberParser.parseDouble(newAmount); // Verifică dacă e număr valid
                     amountInput.setText(newAmount);
                     convertAndDisplay(amountInput, resultLabel);
                 } catch (NumberFormatException ex) {
@@ -1046,11 +1303,6 @@ public class CalculatorApp extends Application {
         
         inputBox.getChildren().addAll(amountInput, conversionBox, actionButtons, resultLabel);
         
-        // Conversie automată la început dacă există sumă
-        if (!amountInput.getText().trim().isEmpty()) {
-            convertAndDisplay(amountInput, resultLabel);
-        }
-        
         conversionSection.getChildren().addAll(conversionTitle, updateDate, ratesLabel, inputBox);
         return conversionSection;
     }
@@ -1062,9 +1314,10 @@ public class CalculatorApp extends Application {
                 resultLabel.setText("Introdu o sumă pentru conversie");
                 return;
             }
-            double amount = Double.parseDouble(amountText);
-            double converted = convertCurrency(amount, selectedFromCurrency, selectedToCurrency);
-            resultLabel.setText(String.format("%.2f %s = %.2f %s", amount, selectedFromCurrency, converted, selectedToCurrency));
+            double amount = NumberParser.parseDouble(amountText);
+            RateSnapshot.Conversion conversion = convertCurrency(amount);
+            resultLabel.setText(formatConversion("", conversion));
+            resultLabel.setTooltip(new Tooltip(describeRates(conversion)));
         } catch (NumberFormatException ex) {
             resultLabel.setText("Sumă invalidă pentru conversie");
         } catch (Exception ex) {
@@ -1073,23 +1326,46 @@ public class CalculatorApp extends Application {
     }
 
     private void showHistoryOverlay() {
-        // Recreate overlay to reflect current theme
-        historyOverlay = createHistoryOverlay();
-        
-        // Replace the overlay in root
-        StackPane root = (StackPane) mainRoot.getParent();
-        if (root.getChildren().size() > 1) {
-            root.getChildren().remove(1);
+        // Overlay-ul se construiește la prima deschidere și se reconstruiește doar dacă s-a schimbat tema
+        if (historyOverlay == null || !currentTheme.equals(historyOverlayTheme)) {
+            historyOverlay = createHistoryOverlay();
+            historyOverlayTheme = currentTheme;
+            
+            // Replace the overlay in root
+            StackPane root = (StackPane) mainRoot.getParent();
+            if (root.getChildren().size() > 1) {
+                root.getChildren().remove(1);
+            }
+            root.getChildren().add(historyOverlay);
         }
-        root.getChildren().add(historyOverlay);
+        updateStatsPanel();
+        preloadOverlayAmount();
         historyOverlay.setVisible(true);
         
         // Update conversion after overlay is created
         convertCurrentResult();
     }
 
+    // Overlay-ul e păstrat între deschideri, deci suma se ia din calculator de fiecare dată
+    private void preloadOverlayAmount() {
+        // Preîncarcă cu suma din calculator dacă există
+        String currentDisplayText = display.getText().trim();
+        if (!currentDisplayText.equals("0") && !currentDisplayText.isEmpty()) {
+            try {
+                NumberParser.parseDouble(currentDisplayText); // Verifică dacă e număr valid
+                overlayAmountInput.setText(currentDisplayText);
+            } catch (NumberFormatException e) {
+                // Nu e număr valid, păstrează suma existentă
+            }
+        }
+        // Conversie automată dacă există sumă
+        if (!overlayAmountInput.getText().trim().isEmpty()) {
+            convertAndDisplay(overlayAmountInput, overlayResultLabel);
+        }
+    }
+
     private void hideHistoryOverlay() {
-        historyOverlay.setVisible(false);
+        if (historyOverlay != null) historyOverlay.setVisible(false);
     }
 
     private void changeTheme(String theme) {
@@ -1100,6 +1376,7 @@ public class CalculatorApp extends Application {
     private void refreshTheme() {
         // Refresh display
         display.setStyle(getDisplayStyle());
+        previewLabel.setTextFill(Color.web(getThemeColor("display_text")));
         
         // Refresh background
         mainRoot.setStyle(getBackgroundStyle());
@@ -1270,120 +1547,33 @@ public class CalculatorApp extends Application {
     }
 
     private void handleButton(String txt) {
-        if (isEmptyInput && !txt.equals("C") && !txt.equals("⌫")) {
-            display.setText("");
-            display.setFont(Font.font("Segoe UI", 72));
-            display.positionCaret(0);
-            isEmptyInput = false;
-        }
+        // Starea și regulile de input sunt în CalculatorLogic; aici doar afișăm
+        String text = logic.press(txt);
+        display.setText(text);
+        display.setFont(Font.font("Segoe UI", 72));
+        display.positionCaret(logic.isJustCalculated() || logic.isInputEmpty() ? 0 : text.length());
         
-        // Reset operator button state
-        if (lastOperatorButton != null && !"+-*/".contains(txt)) {
+        char operator = logic.getActiveOperator();
+        if (operator != 0) {
+            setActiveOperatorButton(String.valueOf(operator));
+        } else if (lastOperatorButton != null && !"+-*/".contains(txt)) {
             resetOperatorButton();
         }
-        
-        switch (txt) {
-            case "C":
-                currentInput = "";
-                display.setText("0");
-                display.setFont(Font.font("Segoe UI", 72));
-                display.positionCaret(0);
-                justCalculated = false;
-                lastWasEqual = false;
-                isEmptyInput = true;
-                resetOperatorButton();
-                break;
-            case ".":
-                if (currentInput.isEmpty()) {
-                    currentInput = "0.";
-                    display.setText(currentInput);
-                    display.setFont(Font.font("Segoe UI", 72));
-                    display.positionCaret(currentInput.length());
-                } else if (!lastChar(currentInput).equals(".")) {
-                    // nu permite mai multe puncte consecutive
-                    // nu permite punct după operator
-                    if (isOperator(lastChar(currentInput))) {
-                        currentInput += "0.";
-                        display.setText(currentInput);
-                        display.setFont(Font.font("Segoe UI", 72));
-                        display.positionCaret(currentInput.length());
-                    } else if (!currentInput.contains(".") || 
-                              (currentInput.contains(".") && currentInput.lastIndexOf('.') < currentInput.lastIndexOf('+') ||
-                               currentInput.lastIndexOf('.') < currentInput.lastIndexOf('-') ||
-                               currentInput.lastIndexOf('.') < currentInput.lastIndexOf('*') ||
-                               currentInput.lastIndexOf('.') < currentInput.lastIndexOf('/'))) {
-                        currentInput += ".";
-                        display.setText(currentInput);
-                        display.setFont(Font.font("Segoe UI", 72));
-                        display.positionCaret(currentInput.length());
-                    }
-                }
-                justCalculated = false;
-                break;
-            case "⌫":
-                if (!currentInput.isEmpty()) {
-                    currentInput = currentInput.substring(0, currentInput.length() - 1);
-                    if (currentInput.isEmpty()) {
-                        display.setText("0");
-                        isEmptyInput = true;
-                    } else {
-                        display.setText(currentInput);
-                    }
-                    display.setFont(Font.font("Segoe UI", 72));
-                    display.positionCaret(currentInput.length());
-                }
-                break;
-            case "%":
-                if (!currentInput.isEmpty() && !isOperator(lastChar(currentInput))) {
-                    currentInput += "%";
-                    display.setText(currentInput);
-                    display.setFont(Font.font("Segoe UI", 72));
-                    display.positionCaret(currentInput.length());
-                }
-                break;
-            case "+":
-            case "-":
-            case "*":
-            case "/":
-                if (currentInput.isEmpty() || isOperator(lastChar(currentInput))) break;
-                if (lastWasEqual) lastWasEqual = false;
-                currentInput += txt;
-                display.setText(currentInput);
-                display.setFont(Font.font("Segoe UI", 72));
-                display.positionCaret(currentInput.length());
-                justCalculated = false;
-                
-                // Set active operator button
-                setActiveOperatorButton(txt);
-                break;
-            case "=":
-                if (currentInput.isEmpty() || isOperator(lastChar(currentInput))) break;
-                String equation = currentInput;
-                double result = evalLeftToRight(currentInput.replace("%", "/100"));
-                String resultStr = (result == (long) result) ? String.valueOf((long) result) : String.valueOf(result);
-                
-                // Add to history
-                history.add(equation + " = " + resultStr);
-                saveHistory(); // Save to file immediately
-                
-                display.setText(resultStr);
-                display.setFont(Font.font("Segoe UI", 72));
-                display.positionCaret(0);
-                currentInput = resultStr;
-                justCalculated = true;
-                lastWasEqual = true;
-                resetOperatorButton();
-                break;
-            default:
-                if (lastWasEqual) {
-                    currentInput = "";
-                    lastWasEqual = false;
-                }
-                currentInput += txt;
-                display.setText(currentInput);
-                display.setFont(Font.font("Segoe UI", 72));
-                display.positionCaret(currentInput.length());
-                justCalculated = false;
+        updatePreview();
+    }
+
+    private void onCalculation(String equation, double result, String resultStr) {
+        StartupMetrics.mark("first result (gui)");
+        // Add to history
+        saveHistory(equation, result);
+    }
+
+    // Previzualizare live a rezultatului sub display
+    private void updatePreview() {
+        if (logic.hasPendingOperation() && !logic.isLastWasEqual()) {
+            previewLabel.setText("= " + logic.getRunningResultText());
+        } else {
+            previewLabel.setText("");
         }
     }
     
@@ -1424,38 +1614,6 @@ public class CalculatorApp extends Application {
         }
     }
 
-    // Evaluare stânga-dreapta fără prioritate operatori
-    private double evalLeftToRight(String expr) {
-        expr = expr.replaceAll("\\s", "");
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile("(\\d+(?:\\.\\d+)?|[+*/-])");
-        java.util.regex.Matcher m = p.matcher(expr);
-        java.util.List<String> tokens = new java.util.ArrayList<>();
-        while (m.find()) tokens.add(m.group());
-        if (tokens.isEmpty()) return 0;
-        double result = Double.parseDouble(tokens.get(0));
-        for (int i = 1; i < tokens.size(); i += 2) {
-            if (i + 1 >= tokens.size()) break;
-            String op = tokens.get(i);
-            double val = Double.parseDouble(tokens.get(i + 1));
-            switch (op) {
-                case "+": result += val; break;
-                case "-": result -= val; break;
-                case "*": result *= val; break;
-                case "/": result /= val; break;
-            }
-        }
-        return result;
-    }
-
-    private boolean isOperator(String txt) {
-        return txt.equals("+") || txt.equals("-") || txt.equals("*") || txt.equals("/");
-    }
-
-    private String lastChar(String s) {
-        if (s.isEmpty()) return "";
-        return s.substring(s.length()-1);
-    }
-
     public static void main(String[] args) {
         launch(args);
     }
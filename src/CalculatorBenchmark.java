@@ -0,0 +1,557 @@
+import java.util.concurrent.ForkJoinPool;
+
+// Măsurători simple pentru motorul de calcul (fără JavaFX).
+// Rulare: java -cp bin CalculatorBenchmark [parallel|streaming|format|parse|history [intrări]|durability|rates|cache|refresh]
+// Secțiunea refresh verifică și comportamentul (cod de ieșire 1 dacă o verificare eșuează).
+public class CalculatorBenchmark {
+    private static volatile double sink;
+    private static int failedChecks;
+
+    public static void main(String[] args) {
+        String which = args.length > 0 ? args[0] : "all";
+        if (which.equals("all") || which.equals("parallel")) benchmarkParallel();
+        if (which.equals("all") || which.equals("streaming")) benchmarkStreaming();
+        if (which.equals("all") || which.equals("format")) benchmarkFormat();
+        if (which.equals("all") || which.equals("parse")) benchmarkParse();
+        if (which.equals("all") || which.equals("history")) {
+            benchmarkHistory(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+        }
+        if (which.equals("all") || which.equals("durability")) benchmarkDurability();
+        if (which.equals("all") || which.equals("rates")) benchmarkRates();
+        if (which.equals("all") || which.equals("cache")) benchmarkCache();
+        if (which.equals("all") || which.equals("refresh")) benchmarkRateRefresh();
+        if (failedChecks > 0) System.exit(1);
+    }
+
+    private static void check(boolean ok, String what) {
+        System.out.printf("  %s %s%n", ok ? "ok  " : "FAIL", what);
+        if (!ok) failedChecks++;
+    }
+
+    // Expresie mare generată, cu valori care rămân finite: +v, -v, *1.00001, /1.00001
+    static String generateExpression(int terms, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        StringBuilder sb = new StringBuilder(terms * 8);
+        sb.append(random.nextInt(1000));
+        for (int i = 1; i < terms; i++) {
+            switch (random.nextInt(4)) {
+                case 0: sb.append('+').append(random.nextInt(1000)).append('.').append(random.nextInt(100)); break;
+                case 1: sb.append('-').append(random.nextInt(1000)); break;
+                case 2: sb.append("*1.00001"); break;
+                default: sb.append("/1.00001"); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    static void benchmarkParallel() {
+        String expr = generateExpression(5_000_000, 42);
+        System.out.printf("Parallel evaluation, %d chars%n", expr.length());
+
+        double sequential = 0;
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            sequential = CalculatorLogic.evaluateLeftToRight(expr, 0, expr.length());
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double sequentialMs = best / 1e6;
+        System.out.printf("  sequential: %8.1f ms  result=%s%n", sequentialMs, sequential);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double result = 0;
+            best = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                long start = System.nanoTime();
+                result = CalculatorLogic.evaluateParallel(expr, pool);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            pool.shutdown();
+            sink = result;
+            double ms = best / 1e6;
+            System.out.printf("  %2d threads: %8.1f ms  speedup=%.2fx  result=%s%n",
+                threads, ms, sequentialMs / ms, result);
+            if (threads < cores && threads * 2 > cores) threads = cores / 2;
+        }
+    }
+
+    static void benchmarkStreaming() {
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("calculator-expr", ".txt");
+            try {
+                String chunk = generateExpression(1_000_000, 7);
+                try (java.io.Writer writer = java.nio.file.Files.newBufferedWriter(file)) {
+                    writer.write(chunk);
+                    for (int i = 0; i < 15; i++) {
+                        writer.write('+');
+                        writer.write(chunk);
+                    }
+                }
+                long size = java.nio.file.Files.size(file);
+                System.out.printf("Streaming evaluation, %.1f MB%n", size / (1024.0 * 1024.0));
+
+                StreamingEvaluator evaluator = new StreamingEvaluator();
+                for (int run = 0; run < 3; run++) {
+                    try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file)) {
+                        sink = evaluator.evaluate((java.nio.channels.ReadableByteChannel) channel);
+                    }
+                }
+                System.out.printf("  channel: %8.1f MB/s  result=%s%n", evaluator.getThroughputMBps(), sink);
+                for (int run = 0; run < 3; run++) {
+                    sink = evaluator.evaluate(file);
+                }
+                System.out.printf("  mapped:  %8.1f MB/s  result=%s%n", evaluator.getThroughputMBps(), sink);
+            } finally {
+                java.nio.file.Files.deleteIfExists(file);
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Streaming benchmark failed: " + e.getMessage());
+        }
+    }
+
+    static void benchmarkFormat() {
+        int n = 1_000_000;
+        double[] values = new double[n];
+        java.util.Random random = new java.util.Random(11);
+        for (int i = 0; i < n; i++) values[i] = random.nextDouble() * Math.pow(10, random.nextInt(12) - 4);
+        System.out.printf("Number formatting, %d values (ns/op)%n", n);
+        StringBuilder sb = new StringBuilder(64);
+        for (int run = 0; run < 3; run++) {
+            long length = 0;
+            long start = System.nanoTime();
+            for (double v : values) length += String.valueOf(v).length();
+            long valueOf = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (double v : values) {
+                sb.setLength(0);
+                length += NumberFormatter.appendShortest(sb, v).length();
+            }
+            long shortest = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (double v : values) length += String.format("%.2f %s = %.2f %s", v, "RON", v / 4.97, "EUR").length();
+            long format = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (double v : values) {
+                sb.setLength(0);
+                NumberFormatter.appendMoney(sb, v).append(' ').append("RON").append(" = ");
+                length += NumberFormatter.appendMoney(sb, v / 4.97).append(' ').append("EUR").length();
+            }
+            long money = System.nanoTime() - start;
+            sink = length;
+            if (run == 2) {
+                System.out.printf("  String.valueOf:          %6.1f%n", (double) valueOf / n);
+                System.out.printf("  appendShortest:          %6.1f%n", (double) shortest / n);
+                System.out.printf("  String.format(%%.2f ..): %6.1f%n", (double) format / n);
+                System.out.printf("  appendMoney x2:          %6.1f%n", (double) money / n);
+            }
+        }
+    }
+
+    static void benchmarkParse() {
+        int n = 1_000_000;
+        java.util.Random random = new java.util.Random(12);
+        StringBuilder text = new StringBuilder(n * 12);
+        int[] bounds = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            bounds[i] = text.length();
+            if (i % 2 == 0) text.append(random.nextInt(100000)).append('.').append(random.nextInt(100));
+            else text.append(random.nextDouble() * Math.pow(10, random.nextInt(20) - 10));
+        }
+        bounds[n] = text.length();
+        String all = text.toString();
+        System.out.printf("Number parsing, %d operands (ns/op)%n", n);
+        for (int run = 0; run < 3; run++) {
+            double total = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) total += Double.parseDouble(all.substring(bounds[i], bounds[i + 1]));
+            long jdk = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) total += NumberParser.parse(all, bounds[i], bounds[i + 1]);
+            long fast = System.nanoTime() - start;
+            sink = total;
+            if (run == 2) {
+                System.out.printf("  substring + Double.parseDouble: %6.1f%n", (double) jdk / n);
+                System.out.printf("  NumberParser.parse (range):     %6.1f%n", (double) fast / n);
+            }
+        }
+    }
+
+    // Istoric text (o linie per calcul, ca vechiul saveHistoryToFile) față de arhiva segmentată:
+    // dimensiune pe disc și timp de încărcare pentru prima pagină afișată (cele mai noi intrări)
+    static void benchmarkHistory(int entries) {
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("calculator-history");
+            java.util.Random random = new java.util.Random(5);
+            String[] expressions = new String[4096];
+            double[] results = new double[expressions.length];
+            for (int i = 0; i < expressions.length; i++) {
+                String e = random.nextInt(10000) + "*" + random.nextInt(100) + "." + random.nextInt(100)
+                    + "+" + random.nextInt(1000);
+                expressions[i] = e;
+                results[i] = CalculatorLogic.evaluateLeftToRight(e, 0, e.length());
+            }
+            // Cât citește aplicația la pornire (CalculatorApp.HISTORY_PAGE)
+            int page = 256;
+            System.out.printf("History storage, %d entries%n", entries);
+
+            java.nio.file.Path text = dir.resolve("plain.txt");
+            long start = System.nanoTime();
+            try (java.io.PrintWriter writer = new java.io.PrintWriter(java.nio.file.Files.newBufferedWriter(text))) {
+                for (int i = 0; i < entries; i++) {
+                    int k = i & (expressions.length - 1);
+                    writer.println(expressions[k] + " = " + CalculatorLogic.formatResult(results[k]));
+                }
+            }
+            long textWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            java.util.ArrayDeque<String> window = new java.util.ArrayDeque<>();
+            try (java.io.BufferedReader reader = java.nio.file.Files.newBufferedReader(text)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    window.addLast(line);
+                    if (window.size() > page) window.removeFirst();
+                }
+            }
+            long textLoad = System.nanoTime() - start;
+            System.out.printf("  text:     %8.1f MB  write %7.0f ms  load last %d %8.2f ms%n",
+                java.nio.file.Files.size(text) / 1e6, textWrite / 1e6, page, textLoad / 1e6);
+
+            java.nio.file.Path base = dir.resolve("history");
+            start = System.nanoTime();
+            try (HistoryStore store = HistoryStore.open(base)) {
+                for (int i = 0; i < entries; i++) {
+                    int k = i & (expressions.length - 1);
+                    store.append(expressions[k], results[k], i);
+                }
+            }
+            long storeWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            int segments;
+            try (HistoryStore store = HistoryStore.open(base)) {
+                // aceeași citire ca în CalculatorApp.loadHistoryAsync
+                long end = store.firstSequence() + store.size();
+                String[] loaded = new String[page];
+                sink = store.readRange(end - page, end, loaded, new double[page]);
+                segments = store.segmentCount();
+            }
+            long storeLoad = System.nanoTime() - start;
+            long storeSize = 0;
+            try (java.nio.file.DirectoryStream<java.nio.file.Path> files =
+                     java.nio.file.Files.newDirectoryStream(dir, "history.*")) {
+                for (java.nio.file.Path file : files) storeSize += java.nio.file.Files.size(file);
+            }
+            System.out.printf("  archive:  %8.1f MB  write %7.0f ms  load last %d %8.2f ms  (%d sealed segments)%n",
+                storeSize / 1e6, storeWrite / 1e6, page, storeLoad / 1e6, segments);
+        } catch (java.io.IOException e) {
+            System.err.println("History benchmark failed: " + e.getMessage());
+        } finally {
+            if (dir != null) {
+                try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.walk(dir)) {
+                    files.sorted(java.util.Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+                } catch (java.io.IOException e) {
+                    // fișiere temporare, le șterge sistemul
+                }
+            }
+        }
+    }
+
+    // Costul fiecărui mod de durabilitate al jurnalului: timpul până când toate intrările
+    // sunt scrise și firul de scriere s-a oprit (cu BATCH, intrările sosite împreună au un singur fsync)
+    static void benchmarkDurability() {
+        int entries = 5000;
+        System.out.printf("History durability, %d entries (us/entry)%n", entries);
+        try {
+            runJournal(HistoryJournal.Durability.NONE, entries); // încălzire JIT
+            for (HistoryJournal.Durability durability : HistoryJournal.Durability.values()) {
+                System.out.printf("  %-12s %8.2f%n", durability, runJournal(durability, entries) / 1e3 / entries);
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Durability benchmark failed: " + e.getMessage());
+        }
+    }
+
+    private static long runJournal(HistoryJournal.Durability durability, int entries) throws java.io.IOException {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("calculator-durability");
+        try {
+            HistoryStore store = HistoryStore.open(dir.resolve("history"));
+            HistoryJournal journal = new HistoryJournal(store, 0, 0, durability);
+            long start = System.nanoTime();
+            for (int i = 0; i < entries; i++) journal.append("1234*56.78+" + i, 70068.52 + i, i);
+            journal.close();
+            return System.nanoTime() - start;
+        } finally {
+            try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.walk(dir)) {
+                files.sorted(java.util.Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    // ResultCache (ca în CalculatorCli --cache) față de reevaluare, pe 1000 de formule zecimale
+    // distincte repetate aleator; fiecare linie e un String nou, ca după readLine
+    static void benchmarkCache() {
+        int n = 200_000;
+        System.out.printf("Result cache, %d lines drawn from 1000 distinct expressions (ns/line)%n", n);
+        for (int terms : new int[] {5, 50, 500}) {
+            String[] distinct = new String[1000];
+            for (int i = 0; i < distinct.length; i++) distinct[i] = generateExpression(terms, i);
+            String[] lines = new String[n];
+            java.util.Random random = new java.util.Random(14);
+            for (int i = 0; i < n; i++) lines[i] = new String(distinct[random.nextInt(distinct.length)]);
+            ResultCache cache = new ResultCache(4096);
+            for (int run = 0; run < 3; run++) {
+                double total = 0;
+                long start = System.nanoTime();
+                for (String line : lines) total += CalculatorLogic.evaluateLeftToRight(line, 0, line.length());
+                long plain = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (String line : lines) total += cache.evaluate(line);
+                long cached = System.nanoTime() - start;
+                sink = total;
+                if (run == 2) {
+                    System.out.printf("  ~%5d chars: evaluate %8.0f  cached %8.0f  (%.1fx)%n",
+                        distinct[0].length(), (double) plain / n, (double) cached / n, (double) plain / cached);
+                }
+            }
+        }
+    }
+
+    // ExchangeRateService față de un server HTTP local: prima descărcare, cache-ul proaspăt servit
+    // fără rețea (TTL), revalidarea cu If-None-Match (304) și reîncercările cu backoff după erori
+    static void benchmarkRateRefresh() {
+        java.util.concurrent.atomic.AtomicInteger requests = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger notModified = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicBoolean failing = new java.util.concurrent.atomic.AtomicBoolean();
+        java.util.List<Long> requestTimes = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        byte[] payload = generateRatesPayload(162, 13);
+        com.sun.net.httpserver.HttpServer server;
+        try {
+            server = com.sun.net.httpserver.HttpServer.create(new java.net.InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (java.io.IOException e) {
+            System.err.println("Rate refresh benchmark failed: " + e.getMessage());
+            return;
+        }
+        server.createContext("/latest", exchange -> {
+            requests.incrementAndGet();
+            requestTimes.add(System.nanoTime());
+            if (failing.get()) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, payload.length);
+                exchange.getResponseBody().write(payload);
+            }
+            exchange.close();
+        });
+        server.start();
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("calculator-rates");
+            java.nio.file.Path cache = dir.resolve("rates.cache");
+            java.net.URI uri = java.net.URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/latest");
+            java.util.concurrent.BlockingQueue<Object[]> events = new java.util.concurrent.LinkedBlockingQueue<>();
+            ExchangeRateService.Listener listener = new ExchangeRateService.Listener() {
+                @Override
+                public void onRates(RateSnapshot snapshot, boolean live) {
+                    events.add(new Object[] {snapshot, live});
+                }
+
+                @Override
+                public void onError(Exception error, long retryInMillis) {
+                    events.add(new Object[] {error, retryInMillis});
+                }
+            };
+            long hour = 3_600_000;
+            System.out.printf("Exchange rate refresh against a local server, %d-byte payload%n", payload.length);
+
+            ExchangeRateService service = new ExchangeRateService(uri, cache, hour, listener);
+            long start = System.nanoTime();
+            service.start();
+            Object[] event = events.poll(5, java.util.concurrent.TimeUnit.SECONDS);
+            long cold = System.nanoTime() - start;
+            service.shutdown();
+            check(event != null && event[0] instanceof RateSnapshot && (Boolean) event[1]
+                && ((RateSnapshot) event[0]).getTable().size() == 162 && requests.get() == 1,
+                String.format("no cache: one request, 162 live rates (%.1f ms)", cold / 1e6));
+
+            // Cache proaspăt: cursurile vin de pe disc, serverul nu e întrebat
+            service = new ExchangeRateService(uri, cache, hour, listener);
+            start = System.nanoTime();
+            service.start();
+            event = events.poll(5, java.util.concurrent.TimeUnit.SECONDS);
+            long warm = System.nanoTime() - start;
+            Thread.sleep(300);
+            service.shutdown();
+            check(event != null && event[0] instanceof RateSnapshot && !(Boolean) event[1] && requests.get() == 1,
+                String.format("fresh cache within TTL: served from disk, no request (%.1f ms)", warm / 1e6));
+
+            // TTL expirat: cererea e condiționată, serverul răspunde 304 și cache-ul e prelungit
+            long fetchedBefore = readFetchedAt(cache);
+            Thread.sleep(5);
+            service = new ExchangeRateService(uri, cache, 0, listener);
+            service.start();
+            Object[] cached = events.poll(5, java.util.concurrent.TimeUnit.SECONDS);
+            event = events.poll(5, java.util.concurrent.TimeUnit.SECONDS);
+            service.shutdown();
+            check(cached != null && event != null && event[0] instanceof RateSnapshot && (Boolean) event[1]
+                && notModified.get() == 1 && requests.get() == 2
+                && ((RateSnapshot) event[0]).getVersion() > ((RateSnapshot) cached[0]).getVersion()
+                && readFetchedAt(cache) > fetchedBefore,
+                "expired TTL: If-None-Match answered with 304, cache kept and its time extended");
+
+            // Server căzut: fiecare reîncercare vine după întârzierea anunțată, care se dublează
+            failing.set(true);
+            requestTimes.clear();
+            service = new ExchangeRateService(uri, cache, 0, listener);
+            service.start();
+            events.poll(5, java.util.concurrent.TimeUnit.SECONDS); // cursurile din cache
+            Object[] first = events.poll(5, java.util.concurrent.TimeUnit.SECONDS);
+            Object[] second = events.poll(10, java.util.concurrent.TimeUnit.SECONDS);
+            service.shutdown();
+            boolean errors = first != null && second != null && first[0] instanceof Exception && second[0] instanceof Exception;
+            long delay1 = errors ? (Long) first[1] : -1;
+            long delay2 = errors ? (Long) second[1] : -1;
+            long gap = errors && requestTimes.size() >= 2
+                ? (requestTimes.get(1) - requestTimes.get(0)) / 1_000_000 : -1;
+            check(errors && delay1 >= 1_000 && delay1 <= 2_000 && delay2 >= 2_000 && delay2 <= 4_000
+                && gap >= delay1 - 50 && gap <= delay1 + 1_000,
+                String.format("server errors: retry after %d ms (waited %d ms), then %d ms", delay1, gap, delay2));
+            boolean bounded = true;
+            for (int failures = 1; failures <= 40; failures++) {
+                long full = Math.min(30 * 60_000L, 2_000L << Math.min(failures - 1, 20));
+                long delay = ExchangeRateService.backoff(failures);
+                bounded &= delay >= full / 2 && delay <= full;
+            }
+            check(bounded, "backoff: equal jitter within [d/2, d], capped at 30 min");
+        } catch (java.io.IOException e) {
+            System.err.println("Rate refresh benchmark failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.stop(0);
+            if (dir != null) {
+                try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.walk(dir)) {
+                    files.sorted(java.util.Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+                } catch (java.io.IOException e) {
+                    // fișiere temporare, le șterge sistemul
+                }
+            }
+        }
+    }
+
+    private static long readFetchedAt(java.nio.file.Path cache) throws java.io.IOException {
+        java.util.Properties properties = new java.util.Properties();
+        try (java.io.InputStream in = java.nio.file.Files.newInputStream(cache)) {
+            properties.load(in);
+        }
+        return Long.parseLong(properties.getProperty("fetchedAt", "0"));
+    }
+
+    // Răspuns de forma celui de la exchangerate-api.com, cu `currencies` monede
+    static byte[] generateRatesPayload(int currencies, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        java.util.Set<String> codes = new java.util.LinkedHashSet<>(java.util.List.of("EUR", "USD", "RON", "GBP", "TRY"));
+        while (codes.size() < currencies) {
+            codes.add("" + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)) + (char) ('A' + random.nextInt(26)));
+        }
+        StringBuilder sb = new StringBuilder(currencies * 16 + 512);
+        sb.append("{\"provider\":\"https://www.exchangerate-api.com\",\"WARNING_UPGRADE_TO_V6\":\"https://www.exchangerate-api.com/docs/free\",")
+            .append("\"terms\":\"https://www.exchangerate-api.com/terms\",\"base\":\"EUR\",\"date\":\"2026-10-18\",")
+            .append("\"time_last_updated\":1792281601,\"rates\":{");
+        boolean first = true;
+        for (String code : codes) {
+            if (!first) sb.append(',');
+            first = false;
+            // ca în API: până la 4 zecimale, fără zerouri la coadă
+            long rate = code.equals("EUR") ? 10_000 : 1 + (long) (random.nextDouble() * Math.pow(10, 4 + random.nextInt(6)));
+            sb.append('"').append(code).append("\":")
+                .append(new java.math.BigDecimal(java.math.BigInteger.valueOf(rate), 4).stripTrailingZeros().toPlainString());
+        }
+        sb.append("}}");
+        return sb.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    // Vechiul parseExchangeRates (String întreg + indexOf/substring per monedă) față de RatesParser,
+    // care citește fluxul o singură dată; timp și octeți alocați per răspuns
+    static void benchmarkRates() {
+        byte[] payload = generateRatesPayload(162, 13);
+        String[] allCodes;
+        {
+            java.util.List<String> codes = new java.util.ArrayList<>();
+            try {
+                new RatesParser().parse(new java.io.ByteArrayInputStream(payload), (code, rate) -> codes.add(code));
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException(e);
+            }
+            allCodes = codes.toArray(new String[0]);
+        }
+        String[] legacyCodes = {"USD", "RON", "GBP", "TRY"};
+        int n = 20_000;
+        System.out.printf("Exchange rate parsing, %d-byte payload with %d currencies, %d runs%n",
+            payload.length, allCodes.length, n);
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        RatesParser parser = new RatesParser();
+        double[] total = {0};
+        for (int run = 0; run < 3; run++) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) total[0] += parseLegacy(payload, legacyCodes);
+            long legacyTime = System.nanoTime() - start;
+            long legacyBytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+            allocated = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) total[0] += parseLegacy(payload, allCodes);
+            long legacyAllTime = System.nanoTime() - start;
+            long legacyAllBytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+            allocated = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            try {
+                for (int i = 0; i < n; i++) {
+                    parser.parse(new java.io.ByteArrayInputStream(payload), (code, rate) -> total[0] += rate);
+                }
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException(e);
+            }
+            long streamTime = System.nanoTime() - start;
+            long streamBytes = threads.getCurrentThreadAllocatedBytes() - allocated;
+            sink = total[0];
+            if (run == 2) {
+                System.out.printf("  indexOf/substring, %3d currencies: %7.2f us  %7d B/payload%n",
+                    legacyCodes.length, legacyTime / 1e3 / n, legacyBytes / n);
+                System.out.printf("  indexOf/substring, %3d currencies: %7.2f us  %7d B/payload%n",
+                    allCodes.length, legacyAllTime / 1e3 / n, legacyAllBytes / n);
+                System.out.printf("  RatesParser (stream), %3d currencies: %7.2f us  %7d B/payload%n",
+                    allCodes.length, streamTime / 1e3 / n, streamBytes / n);
+            }
+        }
+    }
+
+    // Ca vechiul CalculatorApp.parseExchangeRates, cu BodyHandlers.ofString
+    private static double parseLegacy(byte[] payload, String[] codes) {
+        String json = new String(payload, java.nio.charset.StandardCharsets.UTF_8);
+        String ratesSection = json.substring(json.indexOf("\"rates\""));
+        double total = 0;
+        for (String currency : codes) {
+            String pattern = "\"" + currency + "\":";
+            int startIndex = ratesSection.indexOf(pattern);
+            if (startIndex == -1) continue;
+            startIndex += pattern.length();
+            int endIndex = ratesSection.indexOf(",", startIndex);
+            if (endIndex == -1) endIndex = ratesSection.indexOf("}", startIndex);
+            total += NumberParser.parseDouble(ratesSection.substring(startIndex, endIndex).trim());
+        }
+        return total;
+    }
+}
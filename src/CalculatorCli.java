@@ -0,0 +1,114 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+// Mod batch fără JavaFX: citește câte o expresie pe linie (fișier sau stdin)
+// și scrie "expresie = rezultat", în același format ca istoricul din aplicație.
+// Liniile se evaluează în paralel pe toate nucleele, iar ordinea ieșirii se păstrează.
+// Rulare: java -cp bin CalculatorCli [--cache N] [fișier | -]
+// Cu --cache N rezultatele expresiilor repetate se iau dintr-un cache LRU de N intrări.
+// Merită pentru formule lungi și repetate (vezi CalculatorBenchmark cache); la expresii scurte
+// citirea și formatarea domină, iar căutarea în cache doar adaugă timp.
+public class CalculatorCli {
+    private static final int BATCH_LINES = 64 * 1024;
+    private static final int IO_BUFFER = 1 << 20;
+
+    public static void main(String[] args) throws IOException {
+        String source = "-";
+        ResultCache cache = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--cache") && i + 1 < args.length) {
+                cache = new ResultCache(Integer.parseInt(args[++i]));
+            } else {
+                source = args[i];
+            }
+        }
+        BufferedReader reader = source.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), IO_BUFFER)
+            : new BufferedReader(Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8), IO_BUFFER);
+        Writer writer = new java.io.BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), IO_BUFFER);
+        try {
+            run(reader, writer, Runtime.getRuntime().availableProcessors(), cache);
+        } finally {
+            writer.flush();
+            reader.close();
+        }
+        if (cache != null) {
+            System.err.println("Cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses, "
+                + cache.getEvictions() + " evictions");
+        }
+    }
+
+    static void run(BufferedReader reader, Writer writer, int parts, ResultCache cache) throws IOException {
+        // cât timp un lot se evaluează, îl citim pe următorul și îl scriem pe cel dinainte
+        CompletableFuture<String[]> pending = null;
+        String[] batch;
+        while ((batch = readBatch(reader)) != null) {
+            CompletableFuture<String[]> next = evaluateAsync(batch, parts, cache);
+            if (pending != null) write(pending.join(), writer);
+            pending = next;
+        }
+        if (pending != null) write(pending.join(), writer);
+    }
+
+    private static String[] readBatch(BufferedReader reader) throws IOException {
+        String[] lines = new String[BATCH_LINES];
+        int count = 0;
+        String line;
+        while (count < BATCH_LINES && (line = reader.readLine()) != null) {
+            lines[count++] = line;
+        }
+        if (count == 0) return null;
+        return count == BATCH_LINES ? lines : java.util.Arrays.copyOf(lines, count);
+    }
+
+    // Lotul e împărțit în bucăți contigue; fiecare bucată își formatează singură ieșirea
+    private static CompletableFuture<String[]> evaluateAsync(String[] lines, int parts, ResultCache cache) {
+        int n = lines.length;
+        int chunk = (n + parts - 1) / parts;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[(n + chunk - 1) / chunk];
+        for (int p = 0; p < futures.length; p++) {
+            final int from = p * chunk;
+            final int to = Math.min(n, from + chunk);
+            futures[p] = CompletableFuture.supplyAsync(() -> formatLines(lines, from, to, cache));
+        }
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            String[] out = new String[futures.length];
+            for (int p = 0; p < out.length; p++) out[p] = (String) futures[p].join();
+            return out;
+        });
+    }
+
+    static String formatLines(String[] lines, int from, int to, ResultCache cache) {
+        StringBuilder out = new StringBuilder((to - from) * 24);
+        for (int i = from; i < to; i++) {
+            String expr = lines[i].trim();
+            if (!expr.isEmpty()) {
+                out.append(expr).append(" = ");
+                try {
+                    // întregii merg pe calea exactă pe long, care e oricum mai ieftină decât cache-ul
+                    if (cache != null && !CalculatorLogic.isIntegerExpression(expr, 0, expr.length())) {
+                        out.append(CalculatorLogic.formatResult(cache.evaluate(expr)));
+                    } else {
+                        out.append(CalculatorLogic.evaluateToText(expr, 0, expr.length()));
+                    }
+                    if (i == from) StartupMetrics.mark("first result (headless)");
+                } catch (NumberFormatException e) {
+                    out.append("Eroare");
+                }
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void write(String[] chunks, Writer writer) throws IOException {
+        for (String chunk : chunks) writer.write(chunk);
+    }
+}
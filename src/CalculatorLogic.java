@@ -1,16 +1,301 @@
 public class CalculatorLogic {
-    private String currentInput = "";
+    // Inputul e ținut într-un StringBuilder, nu concatenat la fiecare tastă
+    private final StringBuilder currentInput = new StringBuilder();
     private boolean justCalculated = false;
     private boolean lastWasEqual = false;
+    private char activeOperator = 0;
+    private CalculationListener calculationListener;
+    private volatile ResultCache resultCache;
+
+    // Notificare la fiecare "=" (istoric, statistici etc.)
+    public interface CalculationListener {
+        void onCalculation(String equation, double result, String resultText);
+    }
+
+    // Evaluare incrementală: acumulatorul se actualizează pe măsură ce vin tastele,
+    // așa că "=" și previzualizarea nu mai reevaluează tot șirul.
+    private double accumulator = 0;
+    private boolean hasValue = false;
+    private char pendingOp = 0;
+    private int operandStart = 0;
+    // Calea exactă pe long, cât timp inputul are doar întregi și + - *
+    private long exactAccumulator = 0;
+    private boolean exactValid = true;
+    private long runningExact;
+    // Starea salvată la fiecare operator / "%", ca să putem face backspace în O(1)
+    private double[] savedAccumulator = new double[16];
+    private boolean[] savedHasValue = new boolean[16];
+    private char[] savedOp = new char[16];
+    private int[] savedOperandStart = new int[16];
+    private long[] savedExact = new long[16];
+    private boolean[] savedExactValid = new boolean[16];
+    private int savedCount = 0;
+    // Un rezultat afișat în notație exponențială cere lookahead; atunci evaluăm tot șirul
+    private int foreignChars = 0;
     
     public String getCurrentInput() {
-        return currentInput;
+        return currentInput.toString();
     }
     
     public void setCurrentInput(String input) {
-        currentInput = input;
+        clearInput();
+        appendInput(input);
+    }
+
+    public boolean isInputEmpty() {
+        return currentInput.length() == 0;
+    }
+
+    public char lastInputChar() {
+        int len = currentInput.length();
+        return len == 0 ? 0 : currentInput.charAt(len - 1);
+    }
+
+    public void appendInput(String txt) {
+        for (int i = 0; i < txt.length(); i++) {
+            appendInput(txt.charAt(i));
+        }
+    }
+
+    public void appendInput(char c) {
+        int len = currentInput.length();
+        boolean operandEmpty = !hasOperandDigits();
+        boolean isSign = c == '-' && operandEmpty && (!hasValue || pendingOp != 0);
+        if ((isDigit(c) || c == '.') && operandEmpty && hasValue && pendingOp == 0) {
+            // după "%" urmează un operator, nu un operand (press() nici nu ajunge aici)
+            throw new NumberFormatException("Operand fără operator după \"%\"");
+        }
+        if (isForeignChar(c)) foreignChars++;
+        if (!isSign && (c == '+' || c == '-' || c == '*' || c == '/' || c == '%')) {
+            pushState();
+            if (c == '/' || c == '%') exactValid = false;
+            if (c == '%') {
+                if (!operandEmpty || (hasValue && pendingOp == 0)) {
+                    accumulator = getRunningResult() / 100;
+                    hasValue = true;
+                    pendingOp = 0;
+                }
+            } else if (!operandEmpty || hasValue) {
+                if (exactValid) {
+                    exactValid = computeRunningExact();
+                    exactAccumulator = runningExact;
+                }
+                accumulator = getRunningResult();
+                hasValue = true;
+                pendingOp = c;
+            }
+            operandStart = len + 1;
+        }
+        currentInput.append(c);
+    }
+
+    // Rezultatul curent al expresiei, fără reevaluare: acumulator + operandul în curs
+    public double getRunningResult() {
+        int end = currentInput.length();
+        if (foreignChars > 0) return evaluateLeftToRight(currentInput, 0, end);
+        int start = operandStart;
+        boolean negative = false;
+        while (start < end && currentInput.charAt(start) == '-') {
+            negative = !negative;
+            start++;
+        }
+        if (start == end || !(isDigit(currentInput.charAt(start)) || currentInput.charAt(start) == '.')) {
+            return hasValue ? accumulator : 0;
+        }
+        if (hasValue && pendingOp == 0) return accumulator;
+        double operand = parseNumber(currentInput, start, scanNumber(currentInput, start, end));
+        if (negative) operand = -operand;
+        if (!hasValue) return operand;
+        return apply(accumulator, pendingOp, operand);
+    }
+
+    // Rezultatul curent ca text: din long când toată expresia e întreagă, altfel din double
+    public String getRunningResultText() {
+        if (computeRunningExact()) return Long.toString(runningExact);
+        return formatResult(getRunningResult());
+    }
+
+    // Calculează runningExact; false dacă expresia nu mai e exactă (zecimale, "/", "%", depășire)
+    private boolean computeRunningExact() {
+        if (!exactValid || foreignChars > 0) return false;
+        int end = currentInput.length();
+        int start = operandStart;
+        boolean negative = false;
+        while (start < end && currentInput.charAt(start) == '-') {
+            negative = !negative;
+            start++;
+        }
+        if (start == end || (hasValue && pendingOp == 0)) {
+            runningExact = hasValue ? exactAccumulator : 0;
+            return true;
+        }
+        try {
+            long operand = 0;
+            for (int i = start; i < end; i++) {
+                char c = currentInput.charAt(i);
+                if (!isDigit(c)) return false;
+                operand = Math.addExact(Math.multiplyExact(operand, 10), c - '0');
+            }
+            if (negative) operand = -operand;
+            runningExact = hasValue ? applyExact(exactAccumulator, pendingOp, operand) : operand;
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    // Adevărat dacă inputul conține deja un operator aplicat (merită previzualizare)
+    public boolean hasPendingOperation() {
+        return hasValue;
+    }
+
+    // Verifică dacă operandul curent (după ultimul operator) are deja punct zecimal
+    public boolean currentOperandHasDot() {
+        for (int i = operandStart; i < currentInput.length(); i++) {
+            if (currentInput.charAt(i) == '.') return true;
+        }
+        return false;
+    }
+
+    private boolean hasOperandDigits() {
+        for (int i = operandStart; i < currentInput.length(); i++) {
+            char c = currentInput.charAt(i);
+            if (isDigit(c) || c == '.') return true;
+        }
+        return false;
+    }
+
+    // Caractere care nu țin de gramatica tastelor (ex. "E" din 1.0E-5, "Infinity")
+    private static boolean isForeignChar(char c) {
+        return !(isDigit(c) || c == '.' || c == '%' || isOperatorChar(c));
+    }
+
+    private void pushState() {
+        if (savedCount == savedOp.length) {
+            int n = savedCount * 2;
+            savedAccumulator = java.util.Arrays.copyOf(savedAccumulator, n);
+            savedHasValue = java.util.Arrays.copyOf(savedHasValue, n);
+            savedOp = java.util.Arrays.copyOf(savedOp, n);
+            savedOperandStart = java.util.Arrays.copyOf(savedOperandStart, n);
+            savedExact = java.util.Arrays.copyOf(savedExact, n);
+            savedExactValid = java.util.Arrays.copyOf(savedExactValid, n);
+        }
+        savedAccumulator[savedCount] = accumulator;
+        savedHasValue[savedCount] = hasValue;
+        savedOp[savedCount] = pendingOp;
+        savedOperandStart[savedCount] = operandStart;
+        savedExact[savedCount] = exactAccumulator;
+        savedExactValid[savedCount] = exactValid;
+        savedCount++;
+    }
+
+    private void clearInput() {
+        currentInput.setLength(0);
+        accumulator = 0;
+        hasValue = false;
+        pendingOp = 0;
+        operandStart = 0;
+        savedCount = 0;
+        foreignChars = 0;
+        exactAccumulator = 0;
+        exactValid = true;
     }
     
+    public void setCalculationListener(CalculationListener listener) {
+        calculationListener = listener;
+    }
+
+    // Mașina de stări pentru taste: cifre, ".", "%", "⌫", "C", operatori și "=".
+    // Interfața doar apelează press() și afișează getDisplayText().
+    public String press(String key) {
+        char k = key.length() == 1 ? key.charAt(0) : 0;
+        if (!isOperatorChar(k)) activeOperator = 0;
+        switch (key) {
+            case "C":
+            case "c":
+                reset();
+                break;
+            case ".":
+                if (isInputEmpty()) {
+                    appendInput("0.");
+                } else if (lastInputChar() != '.' && lastInputChar() != '%') {
+                    // nu permite mai multe puncte consecutive
+                    // nu permite punct după operator
+                    // nici după "%", unde urmează un operator
+                    if (isOperatorChar(lastInputChar())) {
+                        appendInput("0.");
+                    } else if (!currentOperandHasDot()) {
+                        appendInput('.');
+                    }
+                }
+                justCalculated = false;
+                break;
+            case "⌫":
+                handleBackspace();
+                break;
+            case "%":
+                if (!isInputEmpty() && !isOperatorChar(lastInputChar())) {
+                    appendInput('%');
+                }
+                break;
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+                if (isInputEmpty() || isOperatorChar(lastInputChar())) break;
+                lastWasEqual = false;
+                appendInput(k);
+                justCalculated = false;
+                activeOperator = k;
+                break;
+            case "=":
+                if (isInputEmpty() || isOperatorChar(lastInputChar())) break;
+                calculate();
+                break;
+            default:
+                // după "%" se așteaptă un operator; cifra nu se lipește de "%"
+                if (!isDigit(k) || lastInputChar() == '%') break;
+                if (lastWasEqual) {
+                    clearInput();
+                    lastWasEqual = false;
+                }
+                appendInput(k);
+                justCalculated = false;
+        }
+        return getDisplayText();
+    }
+
+    private void calculate() {
+        String equation = getCurrentInput();
+        // Rezultatul e deja calculat incremental, nu mai reevaluăm expresia
+        double result;
+        String resultStr;
+        if (computeRunningExact()) {
+            // întregi: formatăm direct din long, fără să trecem prin double
+            result = runningExact;
+            resultStr = Long.toString(runningExact);
+        } else {
+            result = getRunningResult();
+            resultStr = formatResult(result);
+        }
+        clearInput();
+        appendInput(resultStr);
+        justCalculated = true;
+        lastWasEqual = true;
+        if (calculationListener != null) {
+            calculationListener.onCalculation(equation, result, resultStr);
+        }
+    }
+
+    public String getDisplayText() {
+        return isInputEmpty() ? "0" : getCurrentInput();
+    }
+
+    // Operatorul care trebuie evidențiat în interfață, sau 0
+    public char getActiveOperator() {
+        return activeOperator;
+    }
+
     public boolean isJustCalculated() {
         return justCalculated;
     }
@@ -28,49 +313,416 @@ public class CalculatorLogic {
     }
     
     public void reset() {
-        currentInput = "";
+        clearInput();
         justCalculated = false;
         lastWasEqual = false;
+        activeOperator = 0;
+    }
+
+    public static String formatResult(double result) {
+        return (result == (long) result) ? String.valueOf((long) result) : NumberFormatter.toShortestString(result);
     }
     
     public boolean isOperator(String txt) {
         return txt.equals("+") || txt.equals("-") || txt.equals("*") || txt.equals("/");
     }
     
+    public static boolean isOperatorChar(char c) {
+        return c == '+' || c == '-' || c == '*' || c == '/';
+    }
+    
     public String getLastChar(String s) {
         if (s.isEmpty()) return "";
         return s.substring(s.length()-1);
     }
     
+    // Evaluare stânga-dreapta fără prioritate operatori.
+    // O singură trecere peste caractere: fără regex, fără substring-uri, fără listă de tokeni.
+    // "%" se aplică pe acumulator ca "/100". Un număr direct după "%" (ex. "5%3") aruncă
+    // NumberFormatException; înainte replace("%", "/100") îl lipea de împărțitor (5/1003).
     public double evaluateLeftToRight(String expr) {
-        expr = expr.replaceAll("\\s", "");
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile("(\\d+(?:\\.\\d+)?|[+*/-])");
-        java.util.regex.Matcher m = p.matcher(expr);
-        java.util.List<String> tokens = new java.util.ArrayList<>();
-        while (m.find()) tokens.add(m.group());
-        if (tokens.isEmpty()) return 0;
-        double result = Double.parseDouble(tokens.get(0));
-        for (int i = 1; i < tokens.size(); i += 2) {
-            if (i + 1 >= tokens.size()) break;
-            String op = tokens.get(i);
-            double val = Double.parseDouble(tokens.get(i + 1));
-            switch (op) {
-                case "+": result += val; break;
-                case "-": result -= val; break;
-                case "*": result *= val; break;
-                case "/": result /= val; break;
+        return evaluateLeftToRight(expr, 0, expr.length());
+    }
+
+    // Evaluare prin cache-ul de rezultate, dacă e configurat; altfel la fel ca evaluateLeftToRight.
+    // Expresiile unice pot ocoli cache-ul apelând direct evaluateLeftToRight.
+    public double evaluate(String expr) {
+        ResultCache cache = resultCache;
+        if (cache != null) return cache.evaluate(expr);
+        return evaluateLeftToRight(expr);
+    }
+
+    public void setResultCache(ResultCache cache) {
+        resultCache = cache;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    private static final int PARALLEL_GRAIN = 1 << 16;
+
+    // Fiecare pas "op valoare" e o funcție afină x -> a*x + b, iar compunerea lor e asociativă
+    // matematic, deci bucăți din expresie se pot reduce independent și combina la final.
+    // Doar la cerere, niciodată automat: în virgulă mobilă compunerea NU e asociativă, iar
+    // rezultatul poate diferi mult de evaluarea secvențială, nu doar în ultimele zecimale
+    // (ex. "1+0...+1e20-1e20+0..." dă 1 în paralel și 0 secvențial; produsele/împărțirile lungi
+    // pot da un număr finit unde secvențial iese Infinity). Dacă apare Infinity/NaN se revine la
+    // evaluarea secvențială, dar diferențele finite nu pot fi detectate.
+    public static double evaluateParallel(CharSequence expr) {
+        return evaluateParallel(expr, java.util.concurrent.ForkJoinPool.commonPool());
+    }
+
+    public static double evaluateParallel(CharSequence expr, java.util.concurrent.ForkJoinPool pool) {
+        int len = expr.length();
+        int first = nextSplitPoint(expr, Math.min(PARALLEL_GRAIN, len), len);
+        double start = evaluateLeftToRight(expr, 0, first);
+        if (first >= len) return start;
+        double[] map = pool.invoke(new AffineTask(expr, first, len));
+        double result = map[0] * start + map[1];
+        if (Double.isNaN(result) || Double.isInfinite(result)) {
+            return evaluateLeftToRight(expr, 0, len);
+        }
+        return result;
+    }
+
+    // Primul operator binar de la poziția from încolo (precedat de un operand), sau to
+    private static int nextSplitPoint(CharSequence s, int from, int to) {
+        for (int i = Math.max(from, 1); i < to; i++) {
+            char c = s.charAt(i);
+            if (isOperatorChar(c)) {
+                char prev = s.charAt(i - 1);
+                if (isDigit(prev) || prev == '.' || prev == '%') return i;
+            }
+        }
+        return to;
+    }
+
+    // Reduce [from, to) la coeficienții {a, b}; from e mereu un operator binar
+    private static double[] affineOf(CharSequence expr, int from, int to) {
+        double a = 1;
+        double b = 0;
+        char pendingOp = 0;
+        boolean negative = false;
+        int i = from;
+        while (i < to) {
+            char c = expr.charAt(i);
+            if (isDigit(c) || c == '.') {
+                int end = scanNumber(expr, i, to);
+                double val = parseNumber(expr, i, end);
+                if (negative) val = -val;
+                negative = false;
+                switch (pendingOp) {
+                    case '+': b += val; break;
+                    case '-': b -= val; break;
+                    case '*': a *= val; b *= val; break;
+                    case '/': a /= val; b /= val; break;
+                    default: throw operandWithoutOperator(expr, i, end);
+                }
+                pendingOp = 0;
+                i = end;
+                continue;
+            }
+            switch (c) {
+                case '+': case '*': case '/':
+                    pendingOp = c;
+                    negative = false;
+                    break;
+                case '-':
+                    if (pendingOp != 0) negative = !negative;
+                    else pendingOp = c;
+                    break;
+                case '%':
+                    if (pendingOp == 0) {
+                        a /= 100;
+                        b /= 100;
+                    }
+                    negative = false;
+                    break;
+                default:
+                    break;
+            }
+            i++;
+        }
+        return new double[] {a, b};
+    }
+
+    private static final class AffineTask extends java.util.concurrent.RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence expr;
+        private final int from;
+        private final int to;
+
+        AffineTask(CharSequence expr, int from, int to) {
+            this.expr = expr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from <= PARALLEL_GRAIN) return affineOf(expr, from, to);
+            int mid = nextSplitPoint(expr, from + (to - from) / 2, to);
+            if (mid >= to) return affineOf(expr, from, to);
+            AffineTask left = new AffineTask(expr, from, mid);
+            left.fork();
+            double[] right = new AffineTask(expr, mid, to).compute();
+            double[] l = left.join();
+            // întâi stânga, apoi dreapta: x -> r.a * (l.a * x + l.b) + r.b
+            return new double[] {right[0] * l[0], right[0] * l[1] + right[1]};
+        }
+    }
+
+    public static double evaluateLeftToRight(CharSequence expr, int from, int to) {
+        double result = 0;
+        char pendingOp = 0;
+        boolean hasValue = false;
+        boolean negative = false;
+        int i = from;
+        while (i < to) {
+            char c = expr.charAt(i);
+            if (isDigit(c) || c == '.') {
+                int end = scanNumber(expr, i, to);
+                double val = parseNumber(expr, i, end);
+                if (negative) val = -val;
+                negative = false;
+                if (!hasValue) {
+                    result = val;
+                    hasValue = true;
+                } else if (pendingOp != 0) {
+                    result = apply(result, pendingOp, val);
+                } else {
+                    // ex. "5%3": operandul nu are operator, nu îl ignorăm pe tăcute
+                    throw operandWithoutOperator(expr, i, end);
+                }
+                pendingOp = 0;
+                i = end;
+                continue;
+            }
+            switch (c) {
+                case '+': case '*': case '/':
+                    if (hasValue) pendingOp = c;
+                    negative = false;
+                    break;
+                case '-':
+                    // minus la început sau după operator = semnul operandului
+                    if (!hasValue || pendingOp != 0) negative = !negative;
+                    else pendingOp = c;
+                    break;
+                case '%':
+                    if (hasValue && pendingOp == 0) result /= 100;
+                    negative = false;
+                    break;
+                default:
+                    // spații și alte caractere sunt ignorate
+                    break;
             }
+            i++;
         }
         return result;
     }
+
+    // Rezultatul ca text; expresiile doar cu întregi și + - * se calculează exact pe long,
+    // iar la depășire se revine la double.
+    public static String evaluateToText(CharSequence expr, int from, int to) {
+        if (isIntegerExpression(expr, from, to)) {
+            try {
+                return Long.toString(evaluateExact(expr, from, to));
+            } catch (ArithmeticException e) {
+                // depășire pe 64 de biți: continuăm pe double
+            }
+        }
+        return formatResult(evaluateLeftToRight(expr, from, to));
+    }
+
+    static boolean isIntegerExpression(CharSequence s, int from, int to) {
+        boolean hasDigit = false;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                hasDigit = true;
+            } else if (c != '+' && c != '-' && c != '*' && !Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    // Aceeași semantică ca evaluateLeftToRight, pe long; aruncă ArithmeticException la depășire
+    static long evaluateExact(CharSequence expr, int from, int to) {
+        long result = 0;
+        char pendingOp = 0;
+        boolean hasValue = false;
+        boolean negative = false;
+        int i = from;
+        while (i < to) {
+            char c = expr.charAt(i);
+            if (isDigit(c)) {
+                int start = i;
+                long val = 0;
+                while (i < to && isDigit(expr.charAt(i))) {
+                    val = Math.addExact(Math.multiplyExact(val, 10), expr.charAt(i) - '0');
+                    i++;
+                }
+                if (negative) val = -val;
+                negative = false;
+                if (!hasValue) {
+                    result = val;
+                    hasValue = true;
+                } else if (pendingOp != 0) {
+                    result = applyExact(result, pendingOp, val);
+                } else {
+                    throw operandWithoutOperator(expr, start, i);
+                }
+                pendingOp = 0;
+                continue;
+            }
+            if (c == '+' || c == '*') {
+                if (hasValue) pendingOp = c;
+                negative = false;
+            } else if (c == '-') {
+                if (!hasValue || pendingOp != 0) negative = !negative;
+                else pendingOp = c;
+            }
+            i++;
+        }
+        return result;
+    }
+
+    static long applyExact(long acc, char op, long val) {
+        switch (op) {
+            case '+': return Math.addExact(acc, val);
+            case '-': return Math.subtractExact(acc, val);
+            case '*': return Math.multiplyExact(acc, val);
+            default: throw new ArithmeticException("Operator fără cale exactă: " + op);
+        }
+    }
+
+    // Compilează expresia o singură dată; rezultatul se poate evalua repetat fără reparsare.
+    // Aceeași semantică ca evaluateLeftToRight.
+    public static CompiledExpression compile(String expr) {
+        byte[] ops = new byte[8];
+        double[] constants = new double[8];
+        int opCount = 0;
+        int constantCount = 0;
+        char pendingOp = 0;
+        boolean negative = false;
+        int i = 0;
+        int to = expr.length();
+        while (i < to) {
+            char c = expr.charAt(i);
+            if (isDigit(c) || c == '.') {
+                int end = scanNumber(expr, i, to);
+                double val = parseNumber(expr, i, end);
+                if (negative) val = -val;
+                negative = false;
+                if (constantCount == 0 || pendingOp != 0) {
+                    if (constantCount > 0) {
+                        if (opCount == ops.length) ops = java.util.Arrays.copyOf(ops, opCount * 2);
+                        ops[opCount++] = CompiledExpression.opcode(pendingOp);
+                    }
+                    if (constantCount == constants.length) constants = java.util.Arrays.copyOf(constants, constantCount * 2);
+                    constants[constantCount++] = val;
+                } else {
+                    throw operandWithoutOperator(expr, i, end);
+                }
+                pendingOp = 0;
+                i = end;
+                continue;
+            }
+            switch (c) {
+                case '+': case '*': case '/':
+                    if (constantCount > 0) pendingOp = c;
+                    negative = false;
+                    break;
+                case '-':
+                    if (constantCount == 0 || pendingOp != 0) negative = !negative;
+                    else pendingOp = c;
+                    break;
+                case '%':
+                    if (constantCount > 0 && pendingOp == 0) {
+                        if (opCount == ops.length) ops = java.util.Arrays.copyOf(ops, opCount * 2);
+                        ops[opCount++] = CompiledExpression.OP_PERCENT;
+                    }
+                    negative = false;
+                    break;
+                default:
+                    break;
+            }
+            i++;
+        }
+        return new CompiledExpression(expr, ops, opCount, constants, constantCount);
+    }
+
+    static NumberFormatException operandWithoutOperator(CharSequence expr, int start, int end) {
+        return new NumberFormatException("Operand fără operator: \"" + expr.subSequence(start, end) + "\"");
+    }
+
+    static double apply(double acc, char op, double val) {
+        switch (op) {
+            case '+': return acc + val;
+            case '-': return acc - val;
+            case '*': return acc * val;
+            case '/': return acc / val;
+            default: return acc;
+        }
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Sfârșitul numărului care începe la start: cifre, punct zecimal, exponent opțional (1.5E10)
+    static int scanNumber(CharSequence s, int start, int to) {
+        int i = start;
+        boolean seenDot = false;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                i++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (i < to && (s.charAt(i) == 'E' || s.charAt(i) == 'e')) {
+            int j = i + 1;
+            if (j < to && (s.charAt(j) == '-' || s.charAt(j) == '+')) j++;
+            if (j < to && isDigit(s.charAt(j))) {
+                while (j < to && isDigit(s.charAt(j))) j++;
+                i = j;
+            }
+        }
+        return i;
+    }
+
+    // Parsează numărul din [start, end) fără să aloce (vezi NumberParser)
+    static double parseNumber(CharSequence s, int start, int end) {
+        return NumberParser.parse(s, start, end);
+    }
     
     public String handleBackspace() {
-        if (!currentInput.isEmpty()) {
-            currentInput = currentInput.substring(0, currentInput.length() - 1);
-            if (currentInput.isEmpty()) {
+        int len = currentInput.length();
+        if (len > 0) {
+            // dacă ștergem caracterul care a salvat o stare, o restaurăm
+            if (savedCount > 0 && operandStart == len) {
+                savedCount--;
+                accumulator = savedAccumulator[savedCount];
+                hasValue = savedHasValue[savedCount];
+                pendingOp = savedOp[savedCount];
+                operandStart = savedOperandStart[savedCount];
+                exactAccumulator = savedExact[savedCount];
+                exactValid = savedExactValid[savedCount];
+            }
+            if (isForeignChar(currentInput.charAt(len - 1))) foreignChars--;
+            currentInput.setLength(len - 1);
+            if (currentInput.length() == 0) {
                 return "0";
             } else {
-                return currentInput;
+                return currentInput.toString();
             }
         }
         return "0";
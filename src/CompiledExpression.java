@@ -0,0 +1,60 @@
+import java.util.Arrays;
+
+// Formă compilată a unei expresii stânga-dreapta: un program de opcode-uri plus
+// un pool de constante. Se evaluează de oricâte ori, fără parsare și fără alocări.
+public final class CompiledExpression {
+    static final byte OP_ADD = 1;
+    static final byte OP_SUB = 2;
+    static final byte OP_MUL = 3;
+    static final byte OP_DIV = 4;
+    static final byte OP_PERCENT = 5; // fără operand, împarte acumulatorul la 100
+
+    private final String source;
+    private final byte[] ops;
+    private final double[] constants;
+
+    CompiledExpression(String source, byte[] ops, int opCount, double[] constants, int constantCount) {
+        this.source = source;
+        this.ops = Arrays.copyOf(ops, opCount);
+        this.constants = Arrays.copyOf(constants, constantCount);
+    }
+
+    public double evaluate() {
+        if (constants.length == 0) return 0;
+        double result = constants[0];
+        int c = 1;
+        for (byte op : ops) {
+            switch (op) {
+                case OP_ADD: result += constants[c++]; break;
+                case OP_SUB: result -= constants[c++]; break;
+                case OP_MUL: result *= constants[c++]; break;
+                case OP_DIV: result /= constants[c++]; break;
+                case OP_PERCENT: result /= 100; break;
+            }
+        }
+        return result;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getOperationCount() {
+        return ops.length;
+    }
+
+    static byte opcode(char op) {
+        switch (op) {
+            case '+': return OP_ADD;
+            case '-': return OP_SUB;
+            case '*': return OP_MUL;
+            case '/': return OP_DIV;
+            default: return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
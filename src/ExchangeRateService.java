@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Ratele de schimb: cache pe disc (cu momentul descărcării, ETag și Last-Modified), servit imediat
+// la pornire, și reîmprospătare în fundal doar când expiră TTL-ul, cu cerere condiționată
+// (If-None-Match / If-Modified-Since). După o eroare, reîncercarea se programează cu
+// backoff exponențial și jitter. URL-ul e configurabil, ca să poată fi un server local de test.
+// Un singur HttpClient (cu timeout-uri) pe toată durata aplicației, deci conexiunea se refolosește;
+// cererile de reîmprospătare simultane primesc toate același CompletableFuture în curs.
+// Cursurile se publică drept RateSnapshot imutabile, înlocuite atomic, deci cititorii nu blochează.
+public final class ExchangeRateService {
+    public static final String DEFAULT_URL = "https://api.exchangerate-api.com/v4/latest/EUR";
+    private static final long INITIAL_BACKOFF_MILLIS = 2_000;
+    private static final long MAX_BACKOFF_MILLIS = 30 * 60_000;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final long MIN_REFRESH_MILLIS = 60_000; // și cu TTL 0, nu mai des de un minut
+
+    public interface Listener {
+        // Apelat pe firul serviciului, după publicare; live = tocmai descărcate sau confirmate de server
+        void onRates(RateSnapshot snapshot, boolean live);
+
+        void onError(Exception error, long retryInMillis);
+    }
+
+    private final URI uri;
+    private final Path cacheFile;
+    private final long ttlMillis;
+    private final Listener listener;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rates-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Scris doar de firul scheduler-ului, citit de oricine
+    private final AtomicReference<RateSnapshot> current = new AtomicReference<>(RateSnapshot.EMPTY);
+    // Modificate doar pe firul scheduler-ului
+    private String etag;
+    private String lastModified;
+    private int failures;
+    private ScheduledFuture<?> nextRefresh;
+    private final AtomicReference<CompletableFuture<RateSnapshot>> inFlight = new AtomicReference<>();
+    private final RatesParser parser = new RatesParser();
+
+    public ExchangeRateService(URI uri, Path cacheFile, long ttlMillis, Listener listener) {
+        this.uri = uri;
+        this.cacheFile = cacheFile;
+        this.ttlMillis = ttlMillis;
+        this.listener = listener;
+    }
+
+    // Configurare din proprietăți de sistem: calculator.rates.url, calculator.rates.ttlMinutes
+    public static ExchangeRateService fromSystemProperties(Path cacheFile, Listener listener) {
+        URI uri = URI.create(System.getProperty("calculator.rates.url", DEFAULT_URL));
+        long ttlMinutes = Long.getLong("calculator.rates.ttlMinutes", 60L);
+        return new ExchangeRateService(uri, cacheFile, TimeUnit.MINUTES.toMillis(ttlMinutes), listener);
+    }
+
+    // Citește cache-ul și programează prima reîmprospătare (imediat, dacă a expirat)
+    public void start() {
+        scheduler.execute(() -> {
+            try {
+                loadCache();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not read exchange rate cache: " + e.getMessage());
+            }
+            RateSnapshot snapshot = current.get();
+            if (!snapshot.isEmpty()) listener.onRates(snapshot, false);
+            long age = System.currentTimeMillis() - snapshot.getFetchedAt();
+            schedule(snapshot.isEmpty() ? 0 : Math.max(0, ttlMillis - age));
+        });
+    }
+
+    // Reîmprospătare indiferent de TTL. Dacă una e deja în curs, se întoarce aceeași, nu se mai trimite o cerere.
+    public CompletableFuture<RateSnapshot> refresh() {
+        while (true) {
+            CompletableFuture<RateSnapshot> current = inFlight.get();
+            if (current != null) return current;
+            CompletableFuture<RateSnapshot> created = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, created)) {
+                try {
+                    scheduler.execute(() -> run(created));
+                } catch (java.util.concurrent.RejectedExecutionException e) {
+                    inFlight.set(null);
+                    created.completeExceptionally(e);
+                }
+                return created;
+            }
+        }
+    }
+
+    public RateSnapshot current() {
+        return current.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduler.isShutdown()) return;
+        if (nextRefresh != null) nextRefresh.cancel(false);
+        nextRefresh = scheduler.schedule(() -> { refresh(); }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Rulează pe firul scheduler-ului; viitorul se eliberează înainte de a fi completat,
+    // ca cine cere după terminare să pornească o cerere nouă
+    private void run(CompletableFuture<RateSnapshot> future) {
+        try {
+            fetch();
+            failures = 0;
+            schedule(Math.max(ttlMillis, MIN_REFRESH_MILLIS));
+            inFlight.set(null);
+            future.complete(current.get());
+        } catch (IOException | RuntimeException e) {
+            failures++;
+            long delay = backoff(failures);
+            listener.onError(e, delay);
+            schedule(delay);
+            inFlight.set(null);
+            future.completeExceptionally(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.set(null);
+            future.completeExceptionally(e);
+        }
+    }
+
+    // Backoff exponențial cu "equal jitter": jumătate fixă, jumătate aleatoare
+    static long backoff(int failures) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(failures - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void fetch() throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT).GET();
+        RateSnapshot snapshot = current.get();
+        if (!snapshot.isEmpty()) {
+            if (etag != null) request.header("If-None-Match", etag);
+            if (lastModified != null) request.header("If-Modified-Since", lastModified);
+        }
+        // Corpul se parsează pe măsură ce sosește, fără să fie adunat într-un String
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        long now = System.currentTimeMillis();
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 304 && !snapshot.isEmpty()) {
+                // Nemodificate: doar prelungim valabilitatea cache-ului
+                snapshot = snapshot.next(snapshot.getTable(), now);
+            } else if (response.statusCode() == 200) {
+                RateTable.Builder parsed = new RateTable.Builder();
+                if (parser.parse(body, parsed::put) == 0) throw new IOException("Răspuns fără rate de schimb");
+                snapshot = snapshot.next(parsed.build(), now);
+                etag = response.headers().firstValue("ETag").orElse(null);
+                lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            } else {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+        }
+        current.set(snapshot);
+        saveCache(snapshot);
+        listener.onRates(snapshot, true);
+    }
+
+    private void loadCache() throws IOException {
+        if (!Files.exists(cacheFile)) return;
+        Properties cache = new Properties();
+        try (InputStream in = Files.newInputStream(cacheFile)) {
+            cache.load(in);
+        }
+        RateTable.Builder cached = new RateTable.Builder();
+        for (String key : cache.stringPropertyNames()) {
+            if (key.startsWith("rate.")) cached.put(key.substring(5), NumberParser.parseDouble(cache.getProperty(key)));
+        }
+        etag = cache.getProperty("etag");
+        lastModified = cache.getProperty("lastModified");
+        long fetchedAt = Long.parseLong(cache.getProperty("fetchedAt", "0"));
+        RateTable table = cached.build();
+        if (!table.isEmpty()) current.set(current.get().next(table, fetchedAt));
+    }
+
+    // Fișier temporar + mutare atomică, ca un cache scris pe jumătate să nu înlocuiască unul bun
+    private void saveCache(RateSnapshot snapshot) {
+        Properties cache = new Properties();
+        cache.setProperty("fetchedAt", Long.toString(snapshot.getFetchedAt()));
+        if (etag != null) cache.setProperty("etag", etag);
+        if (lastModified != null) cache.setProperty("lastModified", lastModified);
+        RateTable table = snapshot.getTable();
+        for (int id = 0; id < table.size(); id++) {
+            cache.setProperty("rate." + table.code(id), NumberFormatter.toShortestString(table.rate(id)));
+        }
+        try {
+            Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                cache.store(out, "Exchange rates cache");
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not save exchange rate cache: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+// Istoricul din memorie: buffer circular de capacitate fixă.
+// Adăugarea și eliminarea celei mai vechi intrări sunt O(1). Expresiile sunt internate
+// (aceeași expresie repetată ocupă un singur String), iar rezultatele stau într-un double[],
+// textul afișat se formează doar când e cerut.
+public final class HistoryBuffer {
+    private final String[] expressions;
+    private final double[] results;
+    private int head; // poziția celei mai vechi intrări
+    private int size;
+
+    public HistoryBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacitatea istoricului trebuie să fie pozitivă");
+        expressions = new String[capacity];
+        results = new double[capacity];
+    }
+
+    // Adaugă la coadă; dacă e plin, cea mai veche intrare e suprascrisă
+    public void add(String expression, double result) {
+        int slot = head + size;
+        if (slot >= expressions.length) slot -= expressions.length;
+        expressions[slot] = expression.intern();
+        results[slot] = result;
+        if (size < expressions.length) {
+            size++;
+        } else {
+            head = head + 1 == expressions.length ? 0 : head + 1;
+        }
+    }
+
+    // Adaugă o intrare mai veche decât toate cele existente; dacă e plin, nu mai are loc
+    public boolean addFirst(String expression, double result) {
+        if (size == expressions.length) return false;
+        head = head == 0 ? expressions.length - 1 : head - 1;
+        expressions[head] = expression.intern();
+        results[head] = result;
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return expressions.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // i = 0 e cea mai veche intrare păstrată
+    public String getExpression(int i) {
+        return expressions[slot(i)];
+    }
+
+    public double getResult(int i) {
+        return results[slot(i)];
+    }
+
+    // Textul afișat în istoric: "expresie = rezultat"
+    public String format(int i) {
+        int slot = slot(i);
+        return expressions[slot] + " = " + CalculatorLogic.formatResult(results[slot]);
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(expressions, null);
+        head = 0;
+        size = 0;
+    }
+
+    private int slot(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Intrare inexistentă: " + i);
+        int slot = head + i;
+        return slot >= expressions.length ? slot - expressions.length : slot;
+    }
+}
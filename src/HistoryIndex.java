@@ -0,0 +1,393 @@
+import java.util.Arrays;
+
+// Index de căutare peste istoric, construit la prima căutare (nu la fiecare pornire) și apoi
+// actualizat la fiecare intrare scrisă de jurnal.
+// Pentru text: liste de apariții pentru fiecare caracter, bigramă și trigramă, peste un
+// alfabet mic (cifre, '.', operatori, 'E', restul într-o singură clasă). Listele sunt
+// crescătoare și ținute ca diferențe varint, deci ocupă în general câte un octet per apariție.
+// O căutare intersectează listele trigramelor din text, apoi verifică doar candidații; un text
+// de cel mult 3 caractere cu o clasă proprie fiecare (cifre, '.', operatori) nu mai trebuie verificat.
+// Intrările scoase de fereastra de păstrare sunt eliminate din liste pe măsură ce se adună.
+// Pentru rezultate: un tablou sortat plus o coadă mică sortată, contopite când coada se umple,
+// ca adăugarea să nu mute tot tabloul la fiecare '='.
+public final class HistoryIndex implements HistoryJournal.Listener {
+    private static final int ALPHABET = 18;
+    private static final int OTHER = ALPHABET - 1;
+    private static final int BIGRAMS = ALPHABET * ALPHABET;
+    private static final int UNIGRAMS = BIGRAMS + BIGRAMS * ALPHABET; // după bigrame și trigrame
+    private static final int TAIL_LIMIT = 4096;
+
+    private final Postings[] grams = new Postings[UNIGRAMS + ALPHABET];
+
+    private double[] sortedResults = new double[0];
+    private int[] sortedIds = new int[0];
+    private int sortedSize;
+    private final double[] tailResults = new double[TAIL_LIMIT];
+    private final int[] tailIds = new int[TAIL_LIMIT];
+    private int tailSize;
+    private int entries;
+    // Id-urile sub această valoare au fost deja scoase din liste
+    private int prunedBelow;
+    // Până la prima căutare intrările noi rămân doar în store
+    private boolean built;
+    // Următorul id care poate fi adăugat; cele de sub el sunt deja în index (sau scoase)
+    private int nextId;
+
+    @Override
+    public synchronized void onAppend(long sequence, String expression, double result, long timestamp) {
+        if (built && sequence >= nextId) add((int) sequence, expression, result);
+    }
+
+    @Override
+    public void onClear() {
+        clear();
+    }
+
+    @Override
+    public void onTrimmed(long firstSequence) {
+        prune((int) firstSequence);
+    }
+
+    // Indexează la prima căutare tot istoricul salvat. Cea mai mare parte se citește fără monitor,
+    // ca firul care scrie să nu aștepte; doar ce a apărut între timp se citește sub el,
+    // după care intrările noi vin prin onAppend.
+    private void ensureBuilt(HistoryStore store) {
+        synchronized (this) {
+            if (built) return;
+            if (nextId < store.firstSequence()) prunedBelow = nextId = (int) store.firstSequence();
+        }
+        while (true) {
+            long end = store.firstSequence() + store.size();
+            int from;
+            synchronized (this) {
+                from = nextId;
+            }
+            if (end - from <= TAIL_LIMIT) break;
+            addFromStore(store, from, end);
+        }
+        synchronized (this) {
+            addFromStore(store, nextId, store.firstSequence() + store.size());
+            built = true;
+        }
+    }
+
+    private void addFromStore(HistoryStore store, long from, long to) {
+        for (long sequence = from; sequence < to; sequence++) {
+            HistoryStore.Entry entry = store.read(sequence);
+            if (entry == null) continue; // scoasă de fereastra de păstrare între timp
+            synchronized (this) {
+                if (sequence >= nextId) add((int) sequence, entry.expression, entry.result);
+            }
+        }
+    }
+
+    // Id-urile trebuie să vină în ordine crescătoare
+    public synchronized void add(int id, String expression, double result) {
+        int a = -1;
+        int b = -1;
+        for (int i = 0; i < expression.length(); i++) {
+            int c = code(expression.charAt(i));
+            postings(UNIGRAMS + c).add(id);
+            if (b >= 0) postings(b * ALPHABET + c).add(id);
+            if (a >= 0) postings(BIGRAMS + (a * ALPHABET + b) * ALPHABET + c).add(id);
+            a = b;
+            b = c;
+        }
+        addResult(id, result);
+        entries++;
+        nextId = id + 1;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(grams, null);
+        sortedResults = new double[0];
+        sortedIds = new int[0];
+        sortedSize = 0;
+        tailSize = 0;
+        entries = 0;
+    }
+
+    // Scoate id-urile mai mici decât `first` când sunt cel puțin cât cele rămase, deci costul
+    // unei curățări (proporțional cu tot indexul) se împarte la intrările scoase
+    public synchronized void prune(int first) {
+        int stale = first - prunedBelow;
+        if (stale <= 0 || stale < Math.max(TAIL_LIMIT, entries - stale)) return;
+        for (int key = 0; key < grams.length; key++) {
+            Postings p = grams[key];
+            if (p != null && !p.removeBelow(first)) grams[key] = null;
+        }
+        int kept = 0;
+        for (int k = 0; k < sortedSize; k++) {
+            if (sortedIds[k] >= first) {
+                sortedResults[kept] = sortedResults[k];
+                sortedIds[kept++] = sortedIds[k];
+            }
+        }
+        int removed = sortedSize - kept;
+        sortedSize = kept;
+        kept = 0;
+        for (int k = 0; k < tailSize; k++) {
+            if (tailIds[k] >= first) {
+                tailResults[kept] = tailResults[k];
+                tailIds[kept++] = tailIds[k];
+            }
+        }
+        removed += tailSize - kept;
+        tailSize = kept;
+        entries -= removed;
+        prunedBelow = first;
+    }
+
+    public synchronized int size() {
+        return entries;
+    }
+
+    // Numerele de secvență ale intrărilor care conțin textul dat, cele mai noi primele.
+    // Citește din store doar candidații care trebuie verificați; poate fi apelată de pe orice fir.
+    public long[] findExpression(HistoryStore store, String text, int limit) {
+        long[] found = new long[Math.max(0, limit)];
+        if (text.isEmpty()) return found;
+        ensureBuilt(store);
+        int[] candidates = candidates(text);
+        boolean exact = text.length() <= 3 && exactCodes(text);
+        int n = 0;
+        for (int k = candidates.length - 1; k >= 0 && n < found.length; k--) {
+            if (exact) {
+                if (store.indexOfSequence(candidates[k]) >= 0) found[n++] = candidates[k];
+                continue;
+            }
+            HistoryStore.Entry entry = store.read(candidates[k]);
+            if (entry != null && entry.expression.contains(text)) found[n++] = candidates[k];
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    // Numerele de secvență ale intrărilor cu rezultatul în [low, high], cele mai noi primele
+    public long[] findResult(HistoryStore store, double low, double high, int limit) {
+        ensureBuilt(store);
+        int[] ids;
+        synchronized (this) {
+            int from = lowerBound(sortedResults, 0, sortedSize, low, false);
+            int to = lowerBound(sortedResults, 0, sortedSize, high, true);
+            int tailFrom = lowerBound(tailResults, 0, tailSize, low, false);
+            int tailTo = lowerBound(tailResults, 0, tailSize, high, true);
+            ids = new int[Math.max(0, to - from) + Math.max(0, tailTo - tailFrom)];
+            int n = 0;
+            for (int k = from; k < to; k++) ids[n++] = sortedIds[k];
+            for (int k = tailFrom; k < tailTo; k++) ids[n++] = tailIds[k];
+        }
+        Arrays.sort(ids);
+        long[] found = new long[Math.min(ids.length, Math.max(0, limit))];
+        int n = 0;
+        for (int k = ids.length - 1; k >= 0 && n < found.length; k--) {
+            if (store.indexOfSequence(ids[k]) >= 0) found[n++] = ids[k];
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    // Intersecția listelor de trigrame (sau lista bigramei/caracterului, pentru 2 sau 1 caracter)
+    private synchronized int[] candidates(String text) {
+        int[] keys = new int[Math.max(1, text.length() - 2)];
+        if (text.length() == 1) {
+            keys[0] = UNIGRAMS + code(text.charAt(0));
+        } else if (text.length() == 2) {
+            keys[0] = code(text.charAt(0)) * ALPHABET + code(text.charAt(1));
+        } else {
+            for (int i = 0; i + 2 < text.length(); i++) {
+                keys[i] = BIGRAMS + (code(text.charAt(i)) * ALPHABET + code(text.charAt(i + 1))) * ALPHABET
+                    + code(text.charAt(i + 2));
+            }
+        }
+        Postings smallest = null;
+        for (int key : keys) {
+            Postings p = grams[key];
+            if (p == null) return new int[0];
+            if (smallest == null || p.count < smallest.count) smallest = p;
+        }
+        int[] result = smallest.decode();
+        for (int key : keys) {
+            if (grams[key] != smallest) result = grams[key].retain(result);
+            if (result.length == 0) break;
+        }
+        return result;
+    }
+
+    private Postings postings(int key) {
+        Postings p = grams[key];
+        if (p == null) {
+            p = new Postings();
+            grams[key] = p;
+        }
+        return p;
+    }
+
+    private void addResult(int id, double result) {
+        // Inserare în coada sortată; id-urile egale rămân în ordinea adăugării
+        int pos = lowerBound(tailResults, 0, tailSize, result, true);
+        System.arraycopy(tailResults, pos, tailResults, pos + 1, tailSize - pos);
+        System.arraycopy(tailIds, pos, tailIds, pos + 1, tailSize - pos);
+        tailResults[pos] = result;
+        tailIds[pos] = id;
+        if (++tailSize == TAIL_LIMIT) mergeTail();
+    }
+
+    // Contopire de la coadă spre început, pe loc: tabloul crește doar când nu mai are loc
+    private void mergeTail() {
+        int size = sortedSize + tailSize;
+        if (size > sortedResults.length) {
+            int capacity = Math.max(size, sortedResults.length + sortedResults.length / 2);
+            sortedResults = Arrays.copyOf(sortedResults, capacity);
+            sortedIds = Arrays.copyOf(sortedIds, capacity);
+        }
+        int i = sortedSize - 1;
+        int j = tailSize - 1;
+        for (int k = size - 1; j >= 0; k--) {
+            if (i >= 0 && Double.compare(sortedResults[i], tailResults[j]) > 0) {
+                sortedResults[k] = sortedResults[i];
+                sortedIds[k] = sortedIds[i--];
+            } else {
+                sortedResults[k] = tailResults[j];
+                sortedIds[k] = tailIds[j--];
+            }
+        }
+        sortedSize = size;
+        tailSize = 0;
+    }
+
+    // Prima poziție cu valoarea >= key (sau > key, dacă upper)
+    private static int lowerBound(double[] values, int from, int to, double key, boolean upper) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Double.compare(values[mid], key);
+            if (cmp < 0 || (upper && cmp == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Fiecare caracter are o clasă doar a lui, deci o potrivire de n-gramă e o potrivire de text
+    private static boolean exactCodes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            int c = code(text.charAt(i));
+            if (c == OTHER || c == code('E')) return false;
+        }
+        return true;
+    }
+
+    private static int code(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        switch (c) {
+            case '.': return 10;
+            case '+': return 11;
+            case '-': return 12;
+            case '*': return 13;
+            case '/': return 14;
+            case '%': return 15;
+            case 'E': case 'e': return 16;
+            default: return OTHER;
+        }
+    }
+
+    // Listă crescătoare de id-uri, codificată ca diferențe varint
+    private static final class Postings {
+        private byte[] bytes = new byte[8];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int id) {
+            if (id == last) return; // aceeași n-gramă de mai multe ori în aceeași expresie
+            int delta = last < 0 ? id : id - last;
+            if (length + 5 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            last = id;
+            count++;
+        }
+
+        int[] decode() {
+            int[] ids = new int[count];
+            int pos = 0;
+            int id = 0;
+            for (int k = 0; k < count; k++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id = k == 0 ? delta : id + delta;
+                ids[k] = id;
+            }
+            return ids;
+        }
+
+        // Scoate id-urile mai mici decât min; false dacă lista rămâne goală
+        boolean removeBelow(int min) {
+            int pos = 0;
+            int id = 0;
+            for (int k = 0; k < count; k++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id = k == 0 ? delta : id + delta;
+                if (id >= min) {
+                    if (k == 0) return true;
+                    // Primul id păstrat se rescrie ca valoare absolută, restul diferențelor rămân
+                    byte[] head = new byte[5];
+                    int h = 0;
+                    int value = id;
+                    while ((value & ~0x7F) != 0) {
+                        head[h++] = (byte) ((value & 0x7F) | 0x80);
+                        value >>>= 7;
+                    }
+                    head[h++] = (byte) value;
+                    int rest = length - pos;
+                    byte[] kept = new byte[Math.max(8, h + rest)];
+                    System.arraycopy(head, 0, kept, 0, h);
+                    System.arraycopy(bytes, pos, kept, h, rest);
+                    bytes = kept;
+                    length = h + rest;
+                    count -= k;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Păstrează din ids (crescător) doar ce apare și în această listă
+        int[] retain(int[] ids) {
+            int[] kept = new int[ids.length];
+            int n = 0;
+            int i = 0;
+            int pos = 0;
+            int id = 0;
+            for (int k = 0; k < count && i < ids.length; k++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id = k == 0 ? delta : id + delta;
+                while (i < ids.length && ids[i] < id) i++;
+                if (i < ids.length && ids[i] == id) kept[n++] = ids[i++];
+            }
+            return Arrays.copyOf(kept, n);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Jurnal append-only pentru istoric, scris în fundal.
+// append() doar pune intrarea într-o coadă; un fir separat strânge tot ce s-a adunat
+// într-un interval și scrie lotul dintr-o dată (group commit) în HistoryStore.
+// Dacă e setată o limită de păstrare, intrările mai vechi sunt scoase după fiecare lot.
+public final class HistoryJournal implements AutoCloseable {
+    public enum Durability {
+        NONE,       // scriere în cache-ul sistemului de operare
+        BATCH,      // fsync după fiecare lot
+        EVERY_ENTRY // fsync după fiecare intrare
+    }
+
+    private static final Object CLEAR = new Object();
+    private static final Object STOP = new Object();
+
+    // Primește intrările după ce au fost scrise în HistoryStore, pe firul de scriere
+    public interface Listener {
+        // Apelat o singură dată, la pornirea firului, înainte de primul lot
+        default void onStart(HistoryStore store) {}
+
+        void onAppend(long sequence, String expression, double result, long timestamp);
+
+        void onClear();
+
+        // Apelat pentru fiecare intrare scoasă de fereastra de păstrare (de la cea mai veche), apoi o dată
+        // onTrimmed; firstSequence e cea mai veche rămasă
+        default void onRemove(String expression, double result, long timestamp) {}
+
+        default void onTrimmed(long firstSequence) {}
+
+        // Apelat după fiecare lot, după ce a fost scris (și sincronizat, după caz)
+        default void onBatchWritten() {}
+    }
+
+    private static final class Pending {
+        final String expression;
+        final double result;
+        final long timestamp;
+
+        Pending(String expression, double result, long timestamp) {
+            this.expression = expression;
+            this.result = result;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final HistoryStore store;
+    private final int retention;
+    private final long flushIntervalMillis;
+    private final Durability durability;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Listener[] listeners;
+    private final Thread writer;
+
+    // retention <= 0 înseamnă fără limită
+    public HistoryJournal(HistoryStore store, int retention, long flushIntervalMillis, Durability durability,
+                          Listener... listeners) {
+        this.store = store;
+        this.listeners = listeners.clone();
+        this.retention = retention;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.durability = durability;
+        this.writer = new Thread(this::runWriter, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Configurare din proprietăți de sistem: calculator.history.retention (implicit fără limită),
+    // calculator.history.flushMillis, calculator.history.durability (none | batch | every_entry)
+    public static HistoryJournal open(HistoryStore store, Listener... listeners) {
+        int retention = Integer.getInteger("calculator.history.retention", 0);
+        long flushMillis = Long.getLong("calculator.history.flushMillis", 200L);
+        String mode = System.getProperty("calculator.history.durability", "batch");
+        Durability durability;
+        try {
+            durability = Durability.valueOf(mode.trim().toUpperCase(java.util.Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            // O valoare greșită nu trebuie să oprească aplicația: se folosește modul implicit
+            System.err.println("Unknown calculator.history.durability '" + mode + "', using batch");
+            durability = Durability.BATCH;
+        }
+        return new HistoryJournal(store, retention, flushMillis, durability, listeners);
+    }
+
+    public HistoryStore getStore() {
+        return store;
+    }
+
+    // Nu blochează niciodată firul apelant
+    public void append(String expression, double result, long timestamp) {
+        queue.offer(new Pending(expression, result, timestamp));
+    }
+
+    public void clear() {
+        queue.offer(CLEAR);
+    }
+
+    // Scrie tot ce e în coadă, oprește firul de scriere și închide fișierele
+    @Override
+    public void close() {
+        queue.offer(STOP);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        List<Object> batch = new ArrayList<>();
+        boolean running = true;
+        try {
+            try {
+                // Fereastra de păstrare se reaplică la pornire (segmentele sigilate se taie abia aici)
+                if (retention > 0) store.retainLast(retention);
+            } catch (IOException e) {
+                System.err.println("Could not trim history: " + e.getMessage());
+            }
+            for (Listener listener : listeners) {
+                try {
+                    listener.onStart(store);
+                } catch (RuntimeException e) {
+                    listenerFailed(e);
+                }
+            }
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                    // fereastra de group commit: tot ce sosește în interval intră în același lot
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                    long remaining;
+                    while ((remaining = deadline - System.nanoTime()) > 0 && !batch.contains(STOP)) {
+                        Object next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                        batch.add(next);
+                    }
+                    queue.drainTo(batch);
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                // Oprirea se reține înainte de scriere, ca o eroare de I/O să nu țină firul pornit
+                if (batch.contains(STOP)) running = false;
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Could not close history: " + e.getMessage());
+            }
+        }
+    }
+
+    // O intrare care nu poate fi scrisă e raportată și sărită; restul lotului se scrie în continuare
+    private void writeBatch(List<Object> batch) {
+        int failed = 0;
+        for (Object item : batch) {
+            if (item == STOP) continue;
+            try {
+                if (item == CLEAR) {
+                    store.clear();
+                    for (Listener listener : listeners) {
+                        try {
+                            listener.onClear();
+                        } catch (RuntimeException e) {
+                            listenerFailed(e);
+                        }
+                    }
+                } else {
+                    Pending entry = (Pending) item;
+                    long sequence = store.append(entry.expression, entry.result, entry.timestamp);
+                    if (durability == Durability.EVERY_ENTRY) store.force();
+                    for (Listener listener : listeners) {
+                        try {
+                            listener.onAppend(sequence, entry.expression, entry.result, entry.timestamp);
+                        } catch (RuntimeException e) {
+                            listenerFailed(e);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                if (failed++ == 0) System.err.println("Could not save history: " + e.getMessage());
+                if (item != CLEAR) System.err.println("History entry not saved: " + ((Pending) item).expression);
+            }
+        }
+        if (failed > 1) System.err.println(failed + " history operations failed in this batch");
+        try {
+            if (retention > 0 && store.size() > retention) {
+                // Intrările care ies se citesc înainte, dar se anunță doar după ce au fost scoase
+                int drop = store.size() - retention;
+                String[] expressions = new String[drop];
+                double[] results = new double[drop];
+                long[] timestamps = new long[drop];
+                for (int i = 0; i < drop; i++) {
+                    expressions[i] = store.getExpression(i);
+                    results[i] = store.getResult(i);
+                    timestamps[i] = store.getTimestamp(i);
+                }
+                store.retainLast(retention);
+                long first = store.firstSequence();
+                for (Listener listener : listeners) {
+                    try {
+                        for (int i = 0; i < drop; i++) listener.onRemove(expressions[i], results[i], timestamps[i]);
+                        listener.onTrimmed(first);
+                    } catch (RuntimeException e) {
+                        listenerFailed(e);
+                    }
+                }
+            }
+            if (durability == Durability.BATCH) store.force();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not save history: " + e.getMessage());
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onBatchWritten();
+            } catch (RuntimeException e) {
+                listenerFailed(e);
+            }
+        }
+    }
+
+    // Un listener care aruncă nu trebuie să oprească firul de scriere
+    private static void listenerFailed(RuntimeException e) {
+        System.err.println("History listener failed: " + e);
+    }
+}
@@ -0,0 +1,72 @@
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lista afișată în istoric, cele mai noi primele, peste HistoryBuffer.
+// Nu copiază nimic: textul unui rând se formează doar când ListView îl cere pentru
+// o celulă vizibilă, iar fiecare calcul nou produce o singură notificare de adăugare.
+public final class HistoryListModel extends ObservableListBase<String> {
+    // Câte rânduri înainte de capătul listei se cer intrările mai vechi de pe disc
+    private static final int PREFETCH = 64;
+
+    private final HistoryBuffer buffer;
+    private Runnable olderRequest;
+
+    public HistoryListModel(HistoryBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    // Apelat (pe firul JavaFX) când ListView se apropie de ultimul rând; trebuie doar să programeze
+    // citirea, iar rândurile vin înapoi prin addOlder
+    public void setOlderRequest(Runnable request) {
+        olderRequest = request;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= buffer.size()) throw new IndexOutOfBoundsException("Intrare inexistentă: " + index);
+        if (olderRequest != null && index >= buffer.size() - PREFETCH) olderRequest.run();
+        return buffer.format(buffer.size() - 1 - index);
+    }
+
+    @Override
+    public int size() {
+        return buffer.size();
+    }
+
+    // Noul calcul apare pe primul rând; dacă bufferul e plin, ultimul rând (cel mai vechi) dispare
+    public void add(String expression, double result) {
+        boolean full = buffer.size() == buffer.capacity();
+        String evicted = full ? buffer.format(0) : null;
+        buffer.add(expression, result);
+        beginChange();
+        nextAdd(0, 1);
+        if (full) nextRemove(buffer.size(), evicted);
+        endChange();
+    }
+
+    // Intrări mai vechi decât tot ce e în listă (în ordine cronologică); apar la sfârșitul listei
+    public void addOlder(String[] expressions, double[] results) {
+        int from = buffer.size();
+        for (int k = expressions.length - 1; k >= 0; k--) {
+            if (!buffer.addFirst(expressions[k], results[k])) break;
+        }
+        if (buffer.size() == from) return;
+        beginChange();
+        nextAdd(from, buffer.size());
+        endChange();
+    }
+
+    @Override
+    public void clear() {
+        if (buffer.isEmpty()) return;
+        // direct din buffer, nu prin get(), ca golirea să nu ceară intrări mai vechi
+        List<String> removed = new ArrayList<>(buffer.size());
+        for (int i = buffer.size() - 1; i >= 0; i--) removed.add(buffer.format(i));
+        buffer.clear();
+        beginChange();
+        nextRemove(0, removed);
+        endChange();
+    }
+}
@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Segment sigilat din istoric: înregistrările (în același format ca în HistoryStore)
+// grupate în blocuri comprimate cu Deflate, urmate de un index mic al blocurilor și un trailer.
+// Deschiderea citește doar trailerul; indexul blocurilor se citește la primul acces,
+// iar din fișier se decomprimă doar blocul care conține intrarea cerută.
+// Citirile pot veni de pe mai multe fire; blocul din cache e păzit de monitorul segmentului.
+final class HistorySegment implements AutoCloseable {
+    static final int BLOCK_ENTRIES = 1024;
+
+    private static final int MAGIC = 0x43485347; // "CHSG"
+    private static final int VERSION = 1;
+    // Trailer: offset index (long), număr blocuri, număr intrări, versiune, magic
+    private static final int TRAILER = 24;
+    // Index bloc: offset (long), lungime comprimată (int), lungime necomprimată (int)
+    private static final int BLOCK_RECORD = 16;
+    // Antet înregistrare: rezultat (double), timestamp (long), lungime expresie (int)
+    private static final int RECORD_HEADER = 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int entryCount;
+    private final int blockCount;
+    private final long footerOffset;
+    private long[] blockOffsets;
+    private int[] compressedLengths;
+    private int[] rawLengths;
+
+    // Ultimul bloc decomprimat și pozițiile înregistrărilor din el
+    private int cachedBlock = -1;
+    private byte[] cachedRaw;
+    private final int[] cachedPositions = new int[BLOCK_ENTRIES];
+
+    private HistorySegment(Path file, FileChannel channel, int entryCount, int blockCount, long footerOffset) {
+        this.file = file;
+        this.channel = channel;
+        this.entryCount = entryCount;
+        this.blockCount = blockCount;
+        this.footerOffset = footerOffset;
+    }
+
+    static HistorySegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < TRAILER) throw new IOException("Segment de istoric incomplet: " + file);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER);
+            readFully(channel, trailer, size - TRAILER);
+            trailer.flip();
+            long footerOffset = trailer.getLong();
+            int blockCount = trailer.getInt();
+            int entryCount = trailer.getInt();
+            int version = trailer.getInt();
+            if (trailer.getInt() != MAGIC || version != VERSION
+                    || footerOffset + (long) blockCount * BLOCK_RECORD != size - TRAILER) {
+                throw new IOException("Segment de istoric invalid: " + file);
+            }
+            return new HistorySegment(file, channel, entryCount, blockCount, footerOffset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int size() {
+        return entryCount;
+    }
+
+    synchronized String getExpression(int i) throws IOException {
+        int pos = locate(i);
+        int length = readInt(cachedRaw, pos + 16);
+        return new String(cachedRaw, pos + RECORD_HEADER, length, StandardCharsets.UTF_8);
+    }
+
+    // locate() poate încărca alt bloc, deci cachedRaw se citește după el
+    synchronized double getResult(int i) throws IOException {
+        int pos = locate(i);
+        return Double.longBitsToDouble(readLong(cachedRaw, pos));
+    }
+
+    synchronized long getTimestamp(int i) throws IOException {
+        int pos = locate(i);
+        return readLong(cachedRaw, pos + 8);
+    }
+
+    // Toată intrarea dintr-o singură localizare a blocului
+    synchronized HistoryStore.Entry read(int i) throws IOException {
+        int pos = locate(i);
+        int length = readInt(cachedRaw, pos + 16);
+        return new HistoryStore.Entry(new String(cachedRaw, pos + RECORD_HEADER, length, StandardCharsets.UTF_8),
+            Double.longBitsToDouble(readLong(cachedRaw, pos)), readLong(cachedRaw, pos + 8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Poziția înregistrării i în blocul ei, decomprimat
+    private int locate(int i) throws IOException {
+        if (i < 0 || i >= entryCount) throw new IndexOutOfBoundsException("Intrare inexistentă: " + i);
+        int block = i / BLOCK_ENTRIES;
+        if (block != cachedBlock) loadBlock(block);
+        return cachedPositions[i % BLOCK_ENTRIES];
+    }
+
+    private void loadBlock(int block) throws IOException {
+        if (blockOffsets == null) readFooter();
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLengths[block]);
+        readFully(channel, compressed, blockOffsets[block]);
+        byte[] raw = new byte[rawLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != raw.length) throw new IOException("Bloc de istoric corupt în " + file);
+        } catch (DataFormatException e) {
+            throw new IOException("Bloc de istoric corupt în " + file, e);
+        } finally {
+            inflater.end();
+        }
+        int entries = Math.min(BLOCK_ENTRIES, entryCount - block * BLOCK_ENTRIES);
+        int pos = 0;
+        for (int k = 0; k < entries; k++) {
+            if (pos + RECORD_HEADER > raw.length) throw new IOException("Bloc de istoric corupt în " + file);
+            cachedPositions[k] = pos;
+            pos += RECORD_HEADER + readInt(raw, pos + 16);
+        }
+        cachedRaw = raw;
+        cachedBlock = block;
+    }
+
+    private void readFooter() throws IOException {
+        ByteBuffer footer = ByteBuffer.allocate(blockCount * BLOCK_RECORD);
+        readFully(channel, footer, footerOffset);
+        footer.flip();
+        long[] offsets = new long[blockCount];
+        int[] compressed = new int[blockCount];
+        int[] raw = new int[blockCount];
+        for (int b = 0; b < blockCount; b++) {
+            offsets[b] = footer.getLong();
+            compressed[b] = footer.getInt();
+            raw[b] = footer.getInt();
+        }
+        compressedLengths = compressed;
+        rawLengths = raw;
+        blockOffsets = offsets;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int n = channel.read(target, position + target.position());
+            if (n < 0) throw new IOException("Sfârșit neașteptat al segmentului de istoric");
+        }
+    }
+
+    private static int readInt(byte[] b, int pos) {
+        return ((b[pos] & 0xFF) << 24) | ((b[pos + 1] & 0xFF) << 16) | ((b[pos + 2] & 0xFF) << 8) | (b[pos + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] b, int pos) {
+        return ((long) readInt(b, pos) << 32) | (readInt(b, pos + 4) & 0xFFFFFFFFL);
+    }
+
+    // Scrie un segment nou; blocurile vin direct ca octeți de înregistrări consecutive
+    static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private byte[] input = new byte[64 * 1024];
+        private byte[] output = new byte[64 * 1024];
+        private ByteBuffer footer = ByteBuffer.allocate(64 * BLOCK_RECORD);
+        private long position;
+        private int blockCount;
+        private int entryCount;
+
+        Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        // records conține exact `entries` înregistrări, între position și limit
+        void addBlock(ByteBuffer records, int entries) throws IOException {
+            int rawLength = records.remaining();
+            if (input.length < rawLength) input = new byte[rawLength];
+            records.get(input, 0, rawLength);
+            deflater.reset();
+            deflater.setInput(input, 0, rawLength);
+            deflater.finish();
+            long start = position;
+            while (!deflater.finished()) {
+                int n = deflater.deflate(output);
+                ByteBuffer chunk = ByteBuffer.wrap(output, 0, n);
+                while (chunk.hasRemaining()) position += channel.write(chunk, position);
+            }
+            if (footer.remaining() < BLOCK_RECORD) {
+                ByteBuffer bigger = ByteBuffer.allocate(footer.capacity() * 2);
+                footer.flip();
+                bigger.put(footer);
+                footer = bigger;
+            }
+            footer.putLong(start).putInt((int) (position - start)).putInt(rawLength);
+            blockCount++;
+            entryCount += entries;
+        }
+
+        // Scrie indexul blocurilor și trailerul, apoi fsync
+        @Override
+        public void close() throws IOException {
+            try {
+                long footerOffset = position;
+                footer.flip();
+                while (footer.hasRemaining()) position += channel.write(footer, position);
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER);
+                trailer.putLong(footerOffset).putInt(blockCount).putInt(entryCount).putInt(VERSION).putInt(MAGIC);
+                trailer.flip();
+                while (trailer.hasRemaining()) position += channel.write(trailer, position);
+                channel.force(true);
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+    }
+}
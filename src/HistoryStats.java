@@ -0,0 +1,351 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.zip.CRC32;
+
+// Statistici despre istoric, actualizate în O(1) la fiecare intrare nouă (nu recalculate din listă):
+// număr de calcule, suma / minimul / maximul / media rezultatelor finite, frecvența fiecărui
+// operator și numărul de calcule pe fiecare oră din zi.
+// Descriu exact intrările păstrate: cele scoase de fereastra de păstrare se scad. Minimul și maximul
+// nu se pot scădea, deci se țin și pe blocuri de BUCKET intrări consecutive; când un extrem iese
+// din fereastră, se recitește doar cel mai vechi bloc din store.
+// Se salvează după fiecare lot scris de jurnal (fișier temporar + mutare atomică, cu CRC),
+// deci la pornire se citesc direct, fără să fie reluat istoricul; dacă nu se potrivesc cu store-ul
+// (ex. după ce o coadă scrisă pe jumătate a fost tăiată la deschidere), se recalculează.
+public final class HistoryStats implements HistoryJournal.Listener {
+    private static final int MAGIC = 0x43485354; // "CHST"
+    private static final int VERSION = 2;
+    private static final int BUCKET = 16384;
+    public static final String OPERATORS = "+-*/%";
+
+    // Valori citite dintr-o dată, ca panoul să nu vadă o actualizare pe jumătate
+    public static final class Snapshot {
+        public final long count;
+        public final long finiteCount;
+        public final double sum;
+        public final double min;
+        public final double max;
+        public final long[] operatorCounts;
+        public final long[] hourCounts;
+
+        Snapshot(long count, long finiteCount, double sum, double min, double max,
+                 long[] operatorCounts, long[] hourCounts) {
+            this.count = count;
+            this.finiteCount = finiteCount;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.operatorCounts = operatorCounts;
+            this.hourCounts = hourCounts;
+        }
+
+        public double mean() {
+            return finiteCount > 0 ? sum / finiteCount : Double.NaN;
+        }
+
+        // Ora (0-23) cu cele mai multe calcule, a n-a în clasament, sau -1
+        public int busiestHour(int rank) {
+            boolean[] used = new boolean[24];
+            int best = -1;
+            for (int r = 0; r <= rank; r++) {
+                best = -1;
+                for (int h = 0; h < 24; h++) {
+                    if (!used[h] && hourCounts[h] > 0 && (best < 0 || hourCounts[h] > hourCounts[best])) best = h;
+                }
+                if (best < 0) return -1;
+                used[best] = true;
+            }
+            return best;
+        }
+    }
+
+    private final Path file;
+    private final ZoneId zone;
+    private long count;
+    private long finiteCount;
+    private double sum;
+    private double compensation; // suma Kahan, ca media să nu derive după milioane de intrări
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final long[] operatorCounts = new long[OPERATORS.length()];
+    private final long[] hourCounts = new long[24];
+    private long lastTimestamp;
+    // Extremele pe blocuri, de la cel mai vechi; primul bloc acoperă intrările 0..count-1 din store
+    private final java.util.ArrayDeque<Bucket> buckets = new java.util.ArrayDeque<>();
+    private boolean extremesStale;
+    private HistoryStore store;
+    private boolean dirty;
+
+    private static final class Bucket {
+        int count;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean stale; // a ieșit un extrem, blocul trebuie recitit
+
+        void add(double result) {
+            count++;
+            if (Double.isFinite(result)) {
+                if (result < min) min = result;
+                if (result > max) max = result;
+            }
+        }
+    }
+
+    public HistoryStats(Path file) {
+        this(file, ZoneId.systemDefault());
+    }
+
+    public HistoryStats(Path file, ZoneId zone) {
+        this.file = file;
+        this.zone = zone;
+    }
+
+    // La pornire: statisticile salvate, dacă descriu aceleași intrări ca store-ul (același număr și
+    // aceeași ultimă intrare); altfel (lipsă, corupte, coadă tăiată, altă fereastră) se parcurge istoricul o dată
+    @Override
+    public void onStart(HistoryStore store) {
+        this.store = store;
+        try {
+            if (load()) {
+                int size = store.size();
+                synchronized (this) {
+                    if (count == size && (size == 0 || lastTimestamp == store.getTimestamp(size - 1))) return;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read history statistics: " + e.getMessage());
+        }
+        synchronized (this) {
+            reset();
+        }
+        int size = store.size();
+        for (int i = 0; i < size; i++) {
+            onAppend(i, store.getExpression(i), store.getResult(i), store.getTimestamp(i));
+        }
+        onBatchWritten();
+    }
+
+    @Override
+    public synchronized void onAppend(long sequence, String expression, double result, long timestamp) {
+        count++;
+        if (Double.isFinite(result)) {
+            finiteCount++;
+            double y = result - compensation;
+            double t = sum + y;
+            compensation = (t - sum) - y;
+            sum = t;
+            if (result < min) min = result;
+            if (result > max) max = result;
+        }
+        countOperators(expression, 1);
+        hourCounts[Instant.ofEpochMilli(timestamp).atZone(zone).getHour()]++;
+        Bucket last = buckets.peekLast();
+        if (last == null || last.count == BUCKET) {
+            last = new Bucket();
+            buckets.addLast(last);
+        }
+        last.add(result);
+        lastTimestamp = timestamp;
+        dirty = true;
+    }
+
+    // Intrările ies în ordine, de la cea mai veche, deci toate din primul bloc
+    @Override
+    public synchronized void onRemove(String expression, double result, long timestamp) {
+        if (count == 0) return;
+        count--;
+        if (Double.isFinite(result)) {
+            finiteCount--;
+            double y = -result - compensation;
+            double t = sum + y;
+            compensation = (t - sum) - y;
+            sum = t;
+            if (finiteCount == 0) {
+                sum = 0;
+                compensation = 0;
+            }
+        }
+        countOperators(expression, -1);
+        hourCounts[Instant.ofEpochMilli(timestamp).atZone(zone).getHour()]--;
+        Bucket first = buckets.peekFirst();
+        if (first != null) {
+            first.count--;
+            if (first.count == 0) {
+                buckets.removeFirst();
+                extremesStale = true;
+            } else if (result == first.min || result == first.max) {
+                first.stale = true;
+                extremesStale = true;
+            }
+        }
+        dirty = true;
+    }
+
+    @Override
+    public synchronized void onClear() {
+        reset();
+        dirty = true;
+    }
+
+    @Override
+    public void onBatchWritten() {
+        refreshExtremes();
+        byte[] bytes;
+        synchronized (this) {
+            if (!dirty) return;
+            bytes = encode();
+            dirty = false;
+        }
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not save history statistics: " + e.getMessage());
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(count, finiteCount, sum, min, max, operatorCounts.clone(), hourCounts.clone());
+    }
+
+    // Pe firul jurnalului, singurul care modifică blocurile; store-ul se citește fără monitor
+    private void refreshExtremes() {
+        int firstCount;
+        synchronized (this) {
+            if (!extremesStale) return;
+            Bucket first = buckets.peekFirst();
+            firstCount = first != null && first.stale ? first.count : 0;
+        }
+        Bucket reread = null;
+        if (firstCount > 0) {
+            reread = new Bucket();
+            for (int i = 0; i < firstCount; i++) reread.add(store.getResult(i));
+        }
+        synchronized (this) {
+            if (reread != null) {
+                buckets.removeFirst();
+                buckets.addFirst(reread);
+            }
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            for (Bucket bucket : buckets) {
+                if (bucket.min < min) min = bucket.min;
+                if (bucket.max > max) max = bucket.max;
+            }
+            extremesStale = false;
+        }
+    }
+
+    // Operatorii binari din expresie; un '-' după alt operator, la început sau după 'E' e semn
+    private void countOperators(String expression, int delta) {
+        char previous = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            int op = OPERATORS.indexOf(c);
+            if (op >= 0) {
+                boolean sign = c == '-' && (previous == 0 || previous == 'E' || previous == 'e'
+                    || (OPERATORS.indexOf(previous) >= 0 && previous != '%'));
+                if (!sign) operatorCounts[op] += delta;
+            }
+            previous = c;
+        }
+    }
+
+    private void reset() {
+        count = 0;
+        finiteCount = 0;
+        sum = 0;
+        compensation = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        java.util.Arrays.fill(operatorCounts, 0);
+        java.util.Arrays.fill(hourCounts, 0);
+        lastTimestamp = 0;
+        buckets.clear();
+        extremesStale = false;
+    }
+
+    private byte[] encode() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(count);
+            out.writeLong(finiteCount);
+            out.writeDouble(sum);
+            out.writeDouble(compensation);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            for (long n : operatorCounts) out.writeLong(n);
+            for (long n : hourCounts) out.writeLong(n);
+            out.writeLong(lastTimestamp);
+            out.writeInt(buckets.size());
+            for (Bucket bucket : buckets) {
+                out.writeInt(bucket.count);
+                out.writeDouble(bucket.min);
+                out.writeDouble(bucket.max);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // nu apare la scrierea în memorie
+        }
+        return buffer.toByteArray();
+    }
+
+    private synchronized boolean load() throws IOException {
+        if (!Files.exists(file)) return false;
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < 4) return false;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        try (DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+            long count = in.readLong();
+            long finiteCount = in.readLong();
+            double sum = in.readDouble();
+            double compensation = in.readDouble();
+            double min = in.readDouble();
+            double max = in.readDouble();
+            long[] operators = new long[operatorCounts.length];
+            for (int i = 0; i < operators.length; i++) operators[i] = in.readLong();
+            long[] hours = new long[hourCounts.length];
+            for (int i = 0; i < hours.length; i++) hours[i] = in.readLong();
+            long lastTimestamp = in.readLong();
+            int bucketCount = in.readInt();
+            if (bucketCount < 0 || bucketCount > bytes.length / 20) return false;
+            java.util.List<Bucket> loaded = new java.util.ArrayList<>(bucketCount);
+            for (int i = 0; i < bucketCount; i++) {
+                Bucket bucket = new Bucket();
+                bucket.count = in.readInt();
+                bucket.min = in.readDouble();
+                bucket.max = in.readDouble();
+                loaded.add(bucket);
+            }
+            if (in.readInt() != (int) crc.getValue()) return false;
+            this.count = count;
+            this.finiteCount = finiteCount;
+            this.sum = sum;
+            this.compensation = compensation;
+            this.min = min;
+            this.max = max;
+            System.arraycopy(operators, 0, operatorCounts, 0, operators.length);
+            System.arraycopy(hours, 0, hourCounts, 0, hours.length);
+            this.lastTimestamp = lastTimestamp;
+            buckets.clear();
+            buckets.addAll(loaded);
+            extremesStale = false;
+            return true;
+        } catch (java.io.EOFException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,700 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Istoric binar, mapat în memorie.
+// Două fișiere: <nume>.dat cu înregistrările (rezultat double, timestamp, expresia în UTF-8)
+// și <nume>.idx cu câte o înregistrare de lungime fixă per intrare (offset + lungime).
+// Deschiderea citește doar antetul indexului, iar intrarea N se găsește direct din index,
+// deci nu e nevoie de parcurgerea fișierului; paginile se încarcă la cerere de sistemul de operare.
+// Când segmentul activ ajunge la `segmentEntries` intrări, e sigilat: se scrie comprimat într-un
+// <nume>.NNNNNN.seg (HistorySegment) și activul se golește. Segmentele sigilate se citesc
+// doar când se cere o intrare din ele, deci pornirea atinge doar activul și trailerele.
+// Câte intrări au fost scoase din cel mai vechi segment sigilat se ține în <nume>.meta (mapat),
+// ca fereastra de păstrare să fie aceeași și după redeschidere.
+// Fiecare înregistrare din activ are un CRC32 în index; la deschidere activul e verificat
+// și o coadă scrisă doar pe jumătate (oprire bruscă înainte ca paginile să ajungă pe disc) e tăiată.
+// Scrie un singur fir (jurnalul), citirile pot veni de pe orice fir. Monitorul store-ului e ținut
+// doar pentru operații scurte în memorie: comprimarea la sigilare și fsync-ul se fac în afara lui,
+// iar o intrare sigilată se decomprimă sub monitorul segmentului ei, deci o citire nu așteaptă după disc.
+public final class HistoryStore implements AutoCloseable {
+    private static final int INDEX_MAGIC = 0x43484958; // "CHIX"
+    private static final int DATA_MAGIC = 0x43484454;  // "CHDT"
+    // Versiunea 1 nu avea CRC; la deschidere e completat și fișierul trece la versiunea 2
+    private static final int VERSION = 2;
+
+    // Antet index: magic, versiune, apoi intervalul [first, first + count) într-un singur long,
+    // ca actualizarea lui să fie o singură scriere
+    private static final int INDEX_HEADER = 16;
+    private static final int RANGE_OFFSET = 8;
+    // Înregistrare index: offset în .dat (long), lungime (int), CRC32 al înregistrării (int)
+    private static final int INDEX_RECORD = 16;
+    private static final int DATA_HEADER = 16;
+    // În antetul .dat: numărul pe care îl va primi segmentul sigilat din activul curent
+    private static final int GENERATION_OFFSET = 8;
+    static final int DEFAULT_SEGMENT_ENTRIES = 1 << 16;
+    // Înregistrare date: rezultat (double), timestamp (long), lungime expresie (int), octeții expresiei
+    private static final int DATA_RECORD_HEADER = 20;
+
+    private static final int INITIAL_INDEX_SIZE = 64 * 1024;
+    private static final int INITIAL_DATA_SIZE = 256 * 1024;
+    // <nume>.meta: magic, versiune, apoi numărul celui mai vechi segment păstrat și câte intrări
+    // sunt scoase din el, într-un singur long (o singură scriere, ca intervalul din index)
+    private static final int META_MAGIC = 0x4348524D; // "CHRM"
+    private static final int META_SIZE = 16;
+    private static final int WATERMARK_OFFSET = 8;
+    // Un MappedByteBuffer se adresează cu int
+    private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+    // O intrare dintr-un segment sigilat, găsită sub monitor și citită în afara lui
+    private static final class Location {
+        final HistorySegment segment;
+        final int index;
+
+        Location(HistorySegment segment, int index) {
+            this.segment = segment;
+            this.index = index;
+        }
+    }
+
+    // O intrare citită dintr-o bucată, ca să nu poată fi amestecată cu alta între citiri
+    public static final class Entry {
+        public final String expression;
+        public final double result;
+        public final long timestamp;
+
+        Entry(String expression, double result, long timestamp) {
+            this.expression = expression;
+            this.result = result;
+            this.timestamp = timestamp;
+        }
+    }
+
+    // Vizitator pentru parcurgere, ca să nu alocăm un obiect per intrare
+    public interface EntryVisitor {
+        // Întoarce false pentru a opri parcurgerea
+        boolean visit(int index, String expression, double result, long timestamp);
+    }
+
+    private final Path base;
+    private final int segmentEntries;
+    private final FileChannel indexChannel;
+    private final FileChannel dataChannel;
+    private final FileChannel metaChannel;
+    private MappedByteBuffer index;
+    private MappedByteBuffer data;
+    private MappedByteBuffer meta;
+    private int first;
+    private int count;
+    private long dataEnd;
+    // Câte intrări au fost scoase din față de la deschidere; numărul de secvență al
+    // intrării i este dropped + i și rămâne stabil cât timp fișierul e deschis
+    private long dropped;
+
+    // Segmentele sigilate, de la cel mai vechi; din primul pot fi scoase primele segmentSkip intrări
+    private final List<HistorySegment> segments = new ArrayList<>();
+    private int[] segmentEnds = new int[0];
+    private int segmentSkip;
+    private int sealedCount;
+    private long generation;
+    private int discardedOnOpen;
+    private final CRC32 crc = new CRC32();
+
+    private HistoryStore(Path base, int segmentEntries, FileChannel indexChannel, FileChannel dataChannel,
+                         FileChannel metaChannel) {
+        this.base = base;
+        this.segmentEntries = segmentEntries;
+        this.indexChannel = indexChannel;
+        this.dataChannel = dataChannel;
+        this.metaChannel = metaChannel;
+    }
+
+    // Deschide (sau creează) <base>.idx, <base>.dat și <base>.meta, plus segmentele sigilate <base>.*.seg
+    public static HistoryStore open(Path base) throws IOException {
+        return open(base, DEFAULT_SEGMENT_ENTRIES);
+    }
+
+    public static HistoryStore open(Path base, int segmentEntries) throws IOException {
+        if (segmentEntries <= 0) throw new IllegalArgumentException("Dimensiunea segmentului trebuie să fie pozitivă");
+        Path indexFile = base.resolveSibling(base.getFileName() + ".idx");
+        Path dataFile = base.resolveSibling(base.getFileName() + ".dat");
+        FileChannel indexChannel = FileChannel.open(indexFile,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel dataChannel = FileChannel.open(dataFile,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel metaChannel;
+        try {
+            metaChannel = FileChannel.open(base.resolveSibling(base.getFileName() + ".meta"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException | RuntimeException e) {
+            indexChannel.close();
+            dataChannel.close();
+            throw e;
+        }
+        HistoryStore store = new HistoryStore(base, segmentEntries, indexChannel, dataChannel, metaChannel);
+        try {
+            store.init();
+            store.openSegments();
+        } catch (IOException | RuntimeException e) {
+            for (HistorySegment segment : store.segments) segment.close();
+            indexChannel.close();
+            dataChannel.close();
+            metaChannel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void init() throws IOException {
+        boolean fresh = indexChannel.size() < INDEX_HEADER;
+        // Un .meta lipsă sau străin înseamnă doar că nu se sare nimic din segmente: se vede
+        // cel mult mai mult istoric decât fereastra, niciodată mai puțin
+        meta = metaChannel.map(FileChannel.MapMode.READ_WRITE, 0, META_SIZE);
+        if (meta.getInt(0) != META_MAGIC || meta.getInt(4) != VERSION) {
+            meta.putInt(0, META_MAGIC);
+            meta.putInt(4, VERSION);
+            meta.putLong(WATERMARK_OFFSET, -1L << 32);
+        }
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(indexChannel.size(), INITIAL_INDEX_SIZE));
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(dataChannel.size(), INITIAL_DATA_SIZE));
+        if (fresh) {
+            index.putInt(0, INDEX_MAGIC);
+            index.putInt(4, VERSION);
+            index.putLong(RANGE_OFFSET, 0);
+            data.putInt(0, DATA_MAGIC);
+            data.putInt(4, VERSION);
+            dataEnd = DATA_HEADER;
+            return;
+        }
+        if (index.getInt(0) != INDEX_MAGIC || data.getInt(0) != DATA_MAGIC) {
+            throw new IOException("Fișierul de istoric nu are formatul așteptat");
+        }
+        int version = index.getInt(4);
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Versiune necunoscută a fișierului de istoric: " + version);
+        }
+        long range = index.getLong(RANGE_OFFSET);
+        first = (int) (range >>> 32);
+        count = (int) range;
+        generation = data.getLong(GENERATION_OFFSET);
+        recover(version == 1);
+        if (version == 1) {
+            index.putInt(4, VERSION);
+            index.force();
+        }
+    }
+
+    // Verifică înregistrările din activ (cel mult un segment, deci cost mărginit) și păstrează
+    // doar prefixul valid: offset-uri consecutive, lungimi coerente și CRC corect.
+    // Pentru fișierele din versiunea 1, CRC-ul lipsă e doar calculat.
+    private void recover(boolean fillCrc) {
+        long expected = DATA_HEADER;
+        int valid = 0;
+        for (; valid < count; valid++) {
+            long slot = INDEX_HEADER + (long) (first + valid) * INDEX_RECORD;
+            if (slot + INDEX_RECORD > index.capacity()) break;
+            long offset = index.getLong((int) slot);
+            int length = index.getInt((int) slot + 8);
+            if (valid > 0 && offset != expected) break;
+            if (offset < DATA_HEADER || length < DATA_RECORD_HEADER || offset + length > data.capacity()) break;
+            if (data.getInt((int) offset + 16) != length - DATA_RECORD_HEADER) break;
+            int checksum = checksum(offset, length);
+            if (fillCrc) {
+                index.putInt((int) slot + 12, checksum);
+            } else if (index.getInt((int) slot + 12) != checksum) {
+                break;
+            }
+            expected = offset + length;
+        }
+        if (valid < count) {
+            discardedOnOpen = count - valid;
+            count = valid;
+            writeRange();
+            index.force();
+        }
+        dataEnd = count > 0 ? expected : DATA_HEADER;
+    }
+
+    // Câte intrări de la coada activului au fost aruncate la deschidere pentru că erau incomplete
+    public int getDiscardedOnOpen() {
+        return discardedOnOpen;
+    }
+
+    private void openSegments() throws IOException {
+        Path dir = base.toAbsolutePath().getParent();
+        String prefix = base.getFileName() + ".";
+        List<Long> numbers = new ArrayList<>();
+        try (java.nio.file.DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*.seg*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".seg.tmp")) {
+                    Files.delete(file); // sigilare întreruptă, activul e încă întreg
+                    continue;
+                }
+                if (!name.endsWith(".seg")) continue;
+                try {
+                    numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - 4)));
+                } catch (NumberFormatException e) {
+                    // alt fișier cu nume asemănător
+                }
+            }
+        }
+        java.util.Collections.sort(numbers);
+        for (long number : numbers) segments.add(HistorySegment.open(segmentFile(number)));
+        for (HistorySegment segment : segments) sealedCount += segment.size();
+        // Se aplică doar dacă cel mai vechi segment e chiar cel din .meta; dacă a fost șters
+        // înainte ca .meta să fie actualizat, nu se sare nimic
+        long watermark = meta.getLong(WATERMARK_OFFSET);
+        int skip = (int) watermark;
+        if (!numbers.isEmpty() && numbers.get(0) == watermark >> 32 && skip > 0 && skip < segments.get(0).size()) {
+            segmentSkip = skip;
+            sealedCount -= skip;
+        }
+        updateSegmentEnds();
+        long last = numbers.isEmpty() ? -1 : numbers.get(numbers.size() - 1);
+        if (last >= generation) {
+            // Segmentul a fost scris, dar activul nu a apucat să fie golit: conținutul lui e deja sigilat
+            first = 0;
+            count = 0;
+            dataEnd = DATA_HEADER;
+            writeRange();
+            generation = last + 1;
+            data.putLong(GENERATION_OFFSET, generation);
+        }
+    }
+
+    public synchronized int size() {
+        return sealedCount + count;
+    }
+
+    // Numărul de segmente sigilate
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    // Întoarce numărul de secvență al intrării adăugate
+    public long append(String expression, double result, long timestamp) throws IOException {
+        // count se schimbă doar pe firul care scrie, deci poate fi citit aici fără monitor
+        if (count >= segmentEntries) seal();
+        synchronized (this) {
+            return appendActive(expression, result, timestamp);
+        }
+    }
+
+    private long appendActive(String expression, double result, long timestamp) throws IOException {
+        byte[] bytes = expression.getBytes(StandardCharsets.UTF_8);
+        int length = DATA_RECORD_HEADER + bytes.length;
+        int slot = first + count;
+        long indexPos = INDEX_HEADER + (long) slot * INDEX_RECORD;
+        ensureIndexCapacity(indexPos + INDEX_RECORD);
+        ensureDataCapacity(dataEnd + length);
+
+        int pos = (int) dataEnd;
+        data.putDouble(pos, result);
+        data.putLong(pos + 8, timestamp);
+        data.putInt(pos + 16, bytes.length);
+        ByteBuffer target = data.duplicate();
+        target.position(pos + DATA_RECORD_HEADER);
+        target.put(bytes);
+
+        index.putLong((int) indexPos, dataEnd);
+        index.putInt((int) indexPos + 8, length);
+        index.putInt((int) indexPos + 12, checksum(dataEnd, length));
+        // Antetul se actualizează ultimul: intrarea există doar după ce e scrisă complet
+        count++;
+        writeRange();
+        dataEnd += length;
+        return dropped + sealedCount + count - 1;
+    }
+
+    // Numărul de secvență al celei mai vechi intrări păstrate
+    public synchronized long firstSequence() {
+        return dropped;
+    }
+
+    // Poziția curentă a intrării cu numărul de secvență dat, sau -1 dacă nu mai există
+    public synchronized int indexOfSequence(long sequence) {
+        long i = sequence - dropped;
+        return i >= 0 && i < sealedCount + count ? (int) i : -1;
+    }
+
+    // Intrarea cu numărul de secvență dat, sau null dacă nu mai există. Poziția se află și se citește
+    // sub același monitor, deci un retainLast de pe firul care scrie nu o poate muta între citiri.
+    // Segmentele sigilate nu se mai schimbă și se citesc sub monitorul lor; unul șters între timp
+    // înseamnă că intrarea a ieșit din fereastră.
+    public Entry read(long sequence) {
+        Location location;
+        synchronized (this) {
+            long i = sequence - dropped;
+            if (i < 0 || i >= sealedCount + count) return null;
+            if (i >= sealedCount) {
+                int pos = recordPosition((int) i);
+                return new Entry(activeExpression((int) i), data.getDouble(pos), data.getLong(pos + 8));
+            }
+            location = locate((int) i);
+        }
+        try {
+            return location.segment.read(location.index);
+        } catch (ClosedChannelException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Intrările cu secvențele din [from, to), în ordine cronologică, puse în expressions/results
+    // începând de la 0; cele ieșite între timp din fereastra de păstrare lipsesc. Întoarce câte s-au citit.
+    public int readRange(long from, long to, String[] expressions, double[] results) {
+        int n = 0;
+        for (long sequence = from; sequence < to; sequence++) {
+            Entry entry = read(sequence);
+            if (entry == null) continue;
+            expressions[n] = entry.expression;
+            results[n] = entry.result;
+            n++;
+        }
+        return n;
+    }
+
+    public String getExpression(int i) {
+        Location location;
+        synchronized (this) {
+            if (i < 0 || i >= sealedCount) return activeExpression(i);
+            location = locate(i);
+        }
+        try {
+            return location.segment.getExpression(location.index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public double getResult(int i) {
+        Location location;
+        synchronized (this) {
+            if (i < 0 || i >= sealedCount) return data.getDouble(recordPosition(i));
+            location = locate(i);
+        }
+        try {
+            return location.segment.getResult(location.index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getTimestamp(int i) {
+        Location location;
+        synchronized (this) {
+            if (i < 0 || i >= sealedCount) return data.getLong(recordPosition(i) + 8);
+            location = locate(i);
+        }
+        try {
+            return location.segment.getTimestamp(location.index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Cele mai noi primele, cel mult `limit` intrări (limit <= 0 = toate)
+    public void forEachNewestFirst(int limit, EntryVisitor visitor) {
+        int end = size();
+        int stop = limit > 0 ? Math.max(0, end - limit) : 0;
+        for (int i = end - 1; i >= stop; i--) {
+            String expression = null;
+            double result = 0;
+            long timestamp = 0;
+            Location location = null;
+            synchronized (this) {
+                if (i >= size()) continue; // istoricul a fost golit între timp
+                if (i >= sealedCount) {
+                    int pos = recordPosition(i);
+                    expression = activeExpression(i);
+                    result = data.getDouble(pos);
+                    timestamp = data.getLong(pos + 8);
+                } else {
+                    location = locate(i);
+                }
+            }
+            if (location != null) {
+                try {
+                    expression = location.segment.getExpression(location.index);
+                    result = location.segment.getResult(location.index);
+                    timestamp = location.segment.getTimestamp(location.index);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (!visitor.visit(i, expression, result, timestamp)) return;
+        }
+    }
+
+    // Păstrează doar ultimele n intrări. Segmentele sigilate ieșite complet din fereastră se șterg;
+    // în activ ștergerea e logică (se mută începutul intervalului), iar spațiul se recuperează
+    // când intrările moarte ajung să fie mai multe decât cele vii
+    public synchronized void retainLast(int n) throws IOException {
+        int total = sealedCount + count;
+        if (n < 0 || total <= n) return;
+        int drop = total - n;
+        dropped += drop;
+        while (drop > 0 && !segments.isEmpty()) {
+            HistorySegment oldest = segments.get(0);
+            int remaining = oldest.size() - segmentSkip;
+            if (drop < remaining) {
+                segmentSkip += drop;
+                sealedCount -= drop;
+                drop = 0;
+            } else {
+                oldest.close();
+                Files.deleteIfExists(oldest.getFile());
+                segments.remove(0);
+                segmentSkip = 0;
+                sealedCount -= remaining;
+                drop -= remaining;
+            }
+        }
+        updateSegmentEnds();
+        writeWatermark();
+        if (drop > 0) {
+            first += drop;
+            count -= drop;
+            writeRange();
+            if (first >= count) compact();
+        }
+    }
+
+    public synchronized void clear() throws IOException {
+        dropped += sealedCount + count;
+        for (HistorySegment segment : segments) {
+            segment.close();
+            Files.deleteIfExists(segment.getFile());
+        }
+        segments.clear();
+        segmentSkip = 0;
+        sealedCount = 0;
+        updateSegmentEnds();
+        writeWatermark();
+        first = 0;
+        count = 0;
+        dataEnd = DATA_HEADER;
+        writeRange();
+    }
+
+    // Trimite pe disc paginile modificate; cititorii nu așteaptă după fsync
+    public void force() {
+        MappedByteBuffer dataPages;
+        MappedByteBuffer indexPages;
+        synchronized (this) {
+            dataPages = data;
+            indexPages = index;
+        }
+        dataPages.force();
+        indexPages.force();
+        meta.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        synchronized (this) {
+            for (HistorySegment segment : segments) segment.close();
+            indexChannel.close();
+            dataChannel.close();
+            metaChannel.close();
+        }
+    }
+
+    // Importă vechiul istoric text ("expresie = rezultat" pe fiecare linie), dacă există.
+    // Fișierul text e redenumit după import, ca migrarea să se facă o singură dată.
+    public int importText(Path textFile) throws IOException {
+        if (!Files.exists(textFile)) return 0;
+        long timestamp = Files.getLastModifiedTime(textFile).toMillis();
+        int imported = 0;
+        try (java.io.BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                int eq = line.lastIndexOf(" = ");
+                String expression = eq >= 0 ? line.substring(0, eq) : line;
+                double result;
+                try {
+                    result = eq >= 0 ? NumberParser.parseDouble(line.substring(eq + 3)) : Double.NaN;
+                } catch (NumberFormatException e) {
+                    result = Double.NaN;
+                }
+                append(expression, result, timestamp);
+                imported++;
+            }
+        }
+        force();
+        Files.move(textFile, textFile.resolveSibling(textFile.getFileName() + ".migrated"),
+            StandardCopyOption.REPLACE_EXISTING);
+        return imported;
+    }
+
+    private String activeExpression(int i) {
+        int pos = recordPosition(i);
+        byte[] bytes = new byte[data.getInt(pos + 16)];
+        ByteBuffer source = data.duplicate();
+        source.position(pos + DATA_RECORD_HEADER);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Location locate(int i) {
+        int s = segmentOf(i);
+        return new Location(segments.get(s), localIndex(s, i));
+    }
+
+    // Poziția în .dat a intrării i din istoric, care trebuie să fie în activ
+    private int recordPosition(int i) {
+        int active = i - sealedCount;
+        if (i < 0 || active >= count) throw new IndexOutOfBoundsException("Intrare inexistentă: " + i);
+        return (int) index.getLong(INDEX_HEADER + (first + active) * INDEX_RECORD);
+    }
+
+    private int segmentOf(int i) {
+        int lo = 0;
+        int hi = segmentEnds.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segmentEnds[mid] <= i) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int localIndex(int segment, int i) {
+        return segment == 0 ? i + segmentSkip : i - segmentEnds[segment - 1];
+    }
+
+    private void updateSegmentEnds() {
+        int[] ends = new int[segments.size()];
+        int end = -segmentSkip;
+        for (int s = 0; s < ends.length; s++) {
+            end += segments.get(s).size();
+            ends[s] = end;
+        }
+        segmentEnds = ends;
+    }
+
+    private Path segmentFile(long number) {
+        return base.resolveSibling(base.getFileName() + "." + String.format("%06d", number) + ".seg");
+    }
+
+    // Scrie activul ca segment comprimat (fișier temporar + mutare atomică), apoi îl golește.
+    // Dacă procesul se oprește între cele două, la deschidere segmentul existent are prioritate.
+    // Comprimarea rulează fără monitor: activul e modificat doar de firul care scrie (acesta),
+    // deci cititorii îl văd neschimbat până când segmentul nou îl înlocuiește, sub monitor.
+    private void seal() throws IOException {
+        Path target = segmentFile(generation);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (HistorySegment.Writer writer = new HistorySegment.Writer(temp)) {
+            for (int b = 0; b < count; b += HistorySegment.BLOCK_ENTRIES) {
+                int entries = Math.min(HistorySegment.BLOCK_ENTRIES, count - b);
+                int firstSlot = INDEX_HEADER + (first + b) * INDEX_RECORD;
+                int lastSlot = INDEX_HEADER + (first + b + entries - 1) * INDEX_RECORD;
+                ByteBuffer block = data.duplicate();
+                block.limit((int) (index.getLong(lastSlot) + index.getInt(lastSlot + 8)));
+                block.position((int) index.getLong(firstSlot));
+                writer.addBlock(block, entries);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        HistorySegment sealed = HistorySegment.open(target);
+        synchronized (this) {
+            segments.add(sealed);
+            sealedCount += count;
+            updateSegmentEnds();
+            first = 0;
+            count = 0;
+            dataEnd = DATA_HEADER;
+            writeRange();
+            generation++;
+            data.putLong(GENERATION_OFFSET, generation);
+        }
+        force();
+    }
+
+    private int checksum(long offset, int length) {
+        ByteBuffer record = data.duplicate();
+        record.limit((int) (offset + length));
+        record.position((int) offset);
+        crc.reset();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private void writeWatermark() {
+        long number = segments.isEmpty() ? -1 : segmentNumber(segments.get(0));
+        meta.putLong(WATERMARK_OFFSET, (number << 32) | (segmentSkip & 0xFFFFFFFFL));
+    }
+
+    private long segmentNumber(HistorySegment segment) {
+        String name = segment.getFile().getFileName().toString();
+        return Long.parseLong(name.substring(base.getFileName().toString().length() + 1, name.length() - 4));
+    }
+
+    private void writeRange() {
+        index.putLong(RANGE_OFFSET, ((long) first << 32) | (count & 0xFFFFFFFFL));
+    }
+
+    // Mută intrările vii la începutul fișierelor, pe loc (fișierele mapate nu pot fi
+    // înlocuite pe Windows). Se face doar când zona moartă e cel puțin cât cea vie,
+    // deci copierea nu suprascrie nimic din ce indică antetul curent.
+    private void compact() {
+        int firstPos = INDEX_HEADER + first * INDEX_RECORD;
+        long liveStart = count > 0 ? index.getLong(firstPos) : dataEnd;
+        long shift = liveStart - DATA_HEADER;
+        if (shift < dataEnd - liveStart) return;
+        byte[] chunk = new byte[64 * 1024];
+        ByteBuffer source = data.duplicate();
+        ByteBuffer target = data.duplicate();
+        source.position((int) liveStart).limit((int) dataEnd);
+        target.position(DATA_HEADER);
+        while (source.hasRemaining()) {
+            int n = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, n);
+            target.put(chunk, 0, n);
+        }
+        for (int i = 0; i < count; i++) {
+            int from = INDEX_HEADER + (first + i) * INDEX_RECORD;
+            int to = INDEX_HEADER + i * INDEX_RECORD;
+            index.putLong(to, index.getLong(from) - shift);
+            index.putInt(to + 8, index.getInt(from + 8));
+            index.putInt(to + 12, index.getInt(from + 12));
+        }
+        data.force();
+        index.force();
+        first = 0;
+        writeRange();
+        dataEnd -= shift;
+    }
+
+    private void ensureIndexCapacity(long needed) throws IOException {
+        if (needed <= index.capacity()) return;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(index.capacity(), needed));
+    }
+
+    private void ensureDataCapacity(long needed) throws IOException {
+        if (needed <= data.capacity()) return;
+        data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, grow(data.capacity(), needed));
+    }
+
+    private static long grow(long current, long needed) throws IOException {
+        if (needed > MAX_MAPPED_SIZE) throw new IOException("Fișierul de istoric a atins dimensiunea maximă");
+        long size = current;
+        while (size < needed) size *= 2;
+        return Math.min(size, MAX_MAPPED_SIZE);
+    }
+}
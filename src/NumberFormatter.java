@@ -0,0 +1,237 @@
+import java.math.BigInteger;
+
+// Formatare rapidă a numerelor, fără String.format.
+// - appendShortest: cea mai scurtă reprezentare zecimală care se recitește exact
+//   (algoritmul Schubfach al lui R. Giulietti), în stilul Double.toString: 0.1, 1.0E-5, 1.2345E10
+// - appendMoney: exact 2 zecimale, rotunjire HALF_UP ca "%.2f", fără dependență de Locale
+// Scriu direct într-un StringBuilder primit, care poate fi refolosit.
+public final class NumberFormatter {
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long T_MASK = (1L << (P - 1)) - 1;
+    private static final int BQ_MASK = 0x7ff;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    private static final long[] POW10 = new long[18];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    // Scratch per fir: rezultatul lui toDecimal este f * 10^exponent
+    private static final ThreadLocal<NumberFormatter> SCRATCH = ThreadLocal.withInitial(NumberFormatter::new);
+    private long digits;
+    private int exponent;
+    private final char[] buffer = new char[20];
+
+    private NumberFormatter() {
+    }
+
+    public static String toShortestString(double v) {
+        return appendShortest(new StringBuilder(24), v).toString();
+    }
+
+    public static String formatMoney(double v) {
+        return appendMoney(new StringBuilder(24), v).toString();
+    }
+
+    public static StringBuilder appendShortest(StringBuilder sb, double v) {
+        if (Double.isNaN(v)) return sb.append("NaN");
+        if (v < 0 || (v == 0 && Double.doubleToRawLongBits(v) != 0)) {
+            sb.append('-');
+            v = -v;
+        }
+        if (Double.isInfinite(v)) return sb.append("Infinity");
+        if (v == 0) return sb.append("0.0");
+        NumberFormatter d = SCRATCH.get();
+        d.toDecimal(v);
+        long f = d.digits;
+        int k = d.exponent;
+        while (f % 10 == 0) {
+            f /= 10;
+            k++;
+        }
+        char[] buf = d.buffer;
+        int len = digitCount(f);
+        for (int i = len - 1; i >= 0; i--) {
+            buf[i] = (char) ('0' + f % 10);
+            f /= 10;
+        }
+        // valoarea este 0.d1d2...dn * 10^e
+        int e = k + len;
+        if (0 < e && e <= 7) {
+            // 123.45 sau 1200.0
+            sb.append(buf, 0, Math.min(e, len));
+            for (int i = len; i < e; i++) sb.append('0');
+            sb.append('.');
+            if (len > e) sb.append(buf, e, len - e);
+            else sb.append('0');
+        } else if (-3 < e && e <= 0) {
+            // 0.00123
+            sb.append("0.");
+            for (int i = e; i < 0; i++) sb.append('0');
+            sb.append(buf, 0, len);
+        } else {
+            // 1.2345E10
+            sb.append(buf[0]).append('.');
+            if (len > 1) sb.append(buf, 1, len - 1);
+            else sb.append('0');
+            sb.append('E').append(e - 1);
+        }
+        return sb;
+    }
+
+    // Ca String.format("%.2f", v): pornește de la cifrele celei mai scurte reprezentări
+    // și rotunjește HALF_UP la două zecimale. Separatorul e mereu ".".
+    public static StringBuilder appendMoney(StringBuilder sb, double v) {
+        if (Double.isNaN(v)) return sb.append("NaN");
+        if (Double.isInfinite(v)) return sb.append(v > 0 ? "Infinity" : "-Infinity");
+        boolean negative = v < 0 || (v == 0 && Double.doubleToRawLongBits(v) != 0);
+        double abs = Math.abs(v);
+        if (abs >= 1e15) {
+            return sb.append(String.format(java.util.Locale.ROOT, "%.2f", v));
+        }
+        long cents = 0;
+        if (abs != 0) {
+            NumberFormatter d = SCRATCH.get();
+            d.toDecimal(abs);
+            long f = d.digits;
+            int scale = d.exponent + 2;
+            if (scale >= 0) {
+                cents = f * POW10[scale];
+            } else if (-scale < POW10.length) {
+                long div = POW10[-scale];
+                cents = f / div;
+                long rem = f - cents * div;
+                if (rem >= div - rem) cents++;
+            }
+        }
+        if (negative) sb.append('-');
+        sb.append(cents / 100).append('.');
+        int fraction = (int) (cents % 100);
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    private static int digitCount(long f) {
+        int len = 1;
+        while (len < POW10.length && f >= POW10[len]) len++;
+        return len;
+    }
+
+    // Schubfach: setează digits/exponent pentru v > 0 finit
+    private void toDecimal(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    // întreg mic, exact
+                    digits = f;
+                    exponent = 0;
+                    return;
+                }
+            }
+            toDecimal(-mq, c, 0);
+        } else {
+            // subnormal
+            if (t < C_TINY) toDecimal(Q_MIN, 10 * t, -1);
+            else toDecimal(Q_MIN, t, 0);
+        }
+    }
+
+    private void toDecimal(int q, long c, int dk) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = Tables.G[2 * (k - K_MIN)];
+        long g0 = Tables.G[2 * (k - K_MIN) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                digits = upin ? sp10 : tp10;
+                exponent = k;
+                return;
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        exponent = k + dk;
+        if (uin != win) {
+            digits = uin ? s : t;
+            return;
+        }
+        long cmp = vb - (s + t << 1);
+        digits = cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t;
+    }
+
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    // Tabela g(k) = floor(10^-k * 2^-r) + 1, cu 2^125 <= g < 2^126, împărțită în două jumătăți de 63 de biți.
+    // Se calculează o singură dată, la prima formatare a unui număr zecimal.
+    private static final class Tables {
+        static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+        static {
+            BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+            for (int k = K_MIN; k <= K_MAX; k++) {
+                int p = -k;
+                int r = flog2pow10(p) - 125;
+                BigInteger num = p >= 0 ? BigInteger.TEN.pow(p) : BigInteger.ONE;
+                BigInteger den = p >= 0 ? BigInteger.ONE : BigInteger.TEN.pow(-p);
+                if (r <= 0) num = num.shiftLeft(-r);
+                else den = den.shiftLeft(r);
+                BigInteger g = num.divide(den).add(BigInteger.ONE);
+                G[2 * (k - K_MIN)] = g.shiftRight(63).longValue();
+                G[2 * (k - K_MIN) + 1] = g.and(mask).longValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.math.BigInteger;
+
+// Parsare zecimal -> double direct pe un interval dintr-un CharSequence, fără substring-uri.
+// Rotunjire corectă: calea rapidă Clinger (mantisă și putere a lui 10 exacte),
+// apoi algoritmul Eisel-Lemire cu produse pe 128 de biți, iar pentru cazurile
+// rare pe care acesta nu le poate decide, Double.parseDouble.
+public final class NumberParser {
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_DIGITS = 19;
+    private static final int MIN_EXP10 = -348;
+    private static final int MAX_EXP10 = 347;
+
+    private NumberParser() {
+    }
+
+    // Varianta tolerantă folosită de evaluator: [start, end) vine de la CalculatorLogic.scanNumber,
+    // adică cifre, cel mult un punct și exponent opțional. Fără cifre în mantisă înseamnă 0.
+    public static double parse(CharSequence s, int start, int end) {
+        long w = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean truncated = false;
+        boolean afterDot = false;
+        int i = start;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                afterDot = true;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) break;
+            if (w == 0 && d == 0) {
+                if (afterDot) scale++;
+            } else if (significant < MAX_DIGITS) {
+                w = w * 10 + d;
+                significant++;
+                if (afterDot) scale++;
+            } else {
+                // cifrele de după a 19-a nu mai încap în long; contează doar pentru rotunjire
+                if (d != 0) truncated = true;
+                if (!afterDot) scale--;
+            }
+        }
+        int exp = 0;
+        if (i < end) {
+            // exponent: E[+-]cifre
+            i++;
+            boolean expNegative = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                expNegative = s.charAt(i) == '-';
+                i++;
+            }
+            for (; i < end; i++) {
+                // exponenții uriași dau oricum 0 sau Infinity, nu lăsăm int-ul să depășească
+                if (exp < 100_000) exp = exp * 10 + (s.charAt(i) - '0');
+            }
+            if (expNegative) exp = -exp;
+        }
+        if (w == 0) return 0;
+        int q = exp - scale;
+        if (!truncated) {
+            double result = fromDecimal(w, q);
+            if (!Double.isNaN(result)) return result;
+        } else {
+            // valoarea reală e între w*10^q și (w+1)*10^q; dacă ambele dau același double, gata
+            double lower = eiselLemire(w, q);
+            if (!Double.isNaN(lower) && lower == eiselLemire(w + 1, q)) return lower;
+        }
+        return Double.parseDouble(s.subSequence(start, end).toString());
+    }
+
+    // w * 10^q pentru o mantisă de cel mult 19 cifre, rotunjit corect; NaN dacă nu se poate decide
+    // (apelantul folosește atunci Double.parseDouble). Pentru parsere care adună singure cifrele.
+    static double fromDecimal(long w, int q) {
+        // cu 19 cifre w poate depăși Long.MAX_VALUE; de aici încolo e tratat ca unsigned
+        if (w >= 0 && w <= (1L << 53)) {
+            if (q == 0) return w;
+            if (q > 0 && q < POW10.length) return w * POW10[q];
+            if (q < 0 && -q < POW10.length) return w / POW10[-q];
+        }
+        return eiselLemire(w, q);
+    }
+
+    // Varianta strictă, pentru text introdus de utilizator: semn opțional, spații la capete.
+    // Aruncă NumberFormatException pentru orice altceva, ca Double.parseDouble.
+    public static double parseDouble(CharSequence s) {
+        int start = 0;
+        int end = s.length();
+        while (start < end && Character.isWhitespace(s.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) end--;
+        boolean negative = false;
+        if (start < end && (s.charAt(start) == '-' || s.charAt(start) == '+')) {
+            negative = s.charAt(start) == '-';
+            start++;
+        }
+        if (start == end || CalculatorLogic.scanNumber(s, start, end) != end || !hasMantissaDigit(s, start, end)) {
+            throw new NumberFormatException("Număr invalid: \"" + s + "\"");
+        }
+        double value = parse(s, start, end);
+        return negative ? -value : value;
+    }
+
+    private static boolean hasMantissaDigit(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (CalculatorLogic.isDigit(c)) return true;
+            if (c != '.') return false;
+        }
+        return false;
+    }
+
+    // Eisel-Lemire (după implementarea din biblioteca standard Go).
+    // Întoarce NaN când rezultatul nu poate fi decis sigur (sau e subnormal/overflow).
+    static double eiselLemire(long man, int exp10) {
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) return Double.NaN;
+        int clz = Long.numberOfLeadingZeros(man);
+        man <<= clz;
+        long retExp2 = ((217706L * exp10) >> 16) + 64 + 1023 - clz;
+        int index = 2 * (exp10 - MIN_EXP10);
+        long powHi = Tables.POW10_128[index];
+        long powLo = Tables.POW10_128[index + 1];
+        long xHi = unsignedMultiplyHigh(man, powHi);
+        long xLo = man * powHi;
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+            long yHi = unsignedMultiplyHigh(man, powLo);
+            long yLo = man * powLo;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) mergedHi++;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + man, man) < 0) {
+                return Double.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+        long msb = xHi >>> 63;
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+        // exact la jumătate: nu putem alege sigur rotunjirea
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1) return Double.NaN;
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if ((retMantissa >>> 53) > 0) {
+            retMantissa >>>= 1;
+            retExp2 += 1;
+        }
+        if (Long.compareUnsigned(retExp2 - 1, 0x7FF - 1) >= 0) return Double.NaN;
+        return Double.longBitsToDouble(retExp2 << 52 | retMantissa & 0x000FFFFFFFFFFFFFL);
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    // Mantise pe 128 de biți (rotunjite în jos) pentru 10^e, e în [-348, 347]: {hi, lo}
+    private static final class Tables {
+        static final long[] POW10_128 = new long[2 * (MAX_EXP10 - MIN_EXP10 + 1)];
+        static {
+            BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+            for (int e = MIN_EXP10; e <= MAX_EXP10; e++) {
+                BigInteger m;
+                if (e >= 0) {
+                    BigInteger v = BigInteger.TEN.pow(e);
+                    int shift = v.bitLength() - 128;
+                    m = shift > 0 ? v.shiftRight(shift) : v.shiftLeft(-shift);
+                } else {
+                    BigInteger d = BigInteger.TEN.pow(-e);
+                    m = BigInteger.ONE.shiftLeft(127 + d.bitLength()).divide(d);
+                }
+                POW10_128[2 * (e - MIN_EXP10)] = m.shiftRight(64).longValue();
+                POW10_128[2 * (e - MIN_EXP10) + 1] = m.and(mask).longValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+// Set imutabil de cursuri, publicat dintr-o dată: tabelul, o versiune care crește la fiecare
+// publicare și momentul în care cursurile au fost descărcate (sau confirmate de server).
+// Se înlocuiește atomic prin referință, deci cine îl citește o dată vede un set consistent, fără blocare.
+public final class RateSnapshot {
+    public static final RateSnapshot EMPTY = new RateSnapshot(RateTable.EMPTY, 0, 0);
+
+    // Rezultatul unei conversii, cu versiunea și momentul cursurilor folosite
+    public static final class Conversion {
+        public final double amount;
+        public final String from;
+        public final String to;
+        public final double result;
+        public final long version;
+        public final long fetchedAt;
+
+        Conversion(double amount, String from, String to, double result, long version, long fetchedAt) {
+            this.amount = amount;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+            this.version = version;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final RateTable table;
+    private final long version;
+    private final long fetchedAt;
+
+    public RateSnapshot(RateTable table, long version, long fetchedAt) {
+        this.table = table;
+        this.version = version;
+        this.fetchedAt = fetchedAt;
+    }
+
+    // Următoarea versiune, cu alt tabel sau doar cu alt moment (304: cursuri confirmate)
+    public RateSnapshot next(RateTable table, long fetchedAt) {
+        return new RateSnapshot(table, version + 1, fetchedAt);
+    }
+
+    public RateTable getTable() {
+        return table;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    // from și to sunt id-uri din tabelul acestui snapshot
+    public Conversion convert(double amount, int from, int to) {
+        return new Conversion(amount, table.code(from), table.code(to), table.convert(amount, from, to), version, fetchedAt);
+    }
+}
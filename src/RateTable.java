@@ -0,0 +1,94 @@
+import java.util.Arrays;
+
+// Tabel imutabil de cursuri față de o monedă de bază. Monedele primesc id-uri mici (poziția lor
+// în ordine alfabetică), cursurile stau într-un double[], iar la construire se precalculează
+// matricea N×N a cursurilor încrucișate, deci o conversie e o citire din tablou și o înmulțire.
+// Id-urile sunt valabile doar pentru tabelul care le-a dat; după o actualizare se rezolvă din nou.
+public final class RateTable {
+    public static final RateTable EMPTY = new Builder().build();
+
+    private final String[] codes;
+    private final double[] rates;
+    private final double[] cross;
+    private final int n;
+
+    private RateTable(String[] codes, double[] rates) {
+        this.codes = codes;
+        this.rates = rates;
+        this.n = codes.length;
+        this.cross = new double[n * n];
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) cross[from * n + to] = rates[to] / rates[from];
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    // Id-ul monedei sau -1 dacă lipsește din tabel
+    public int id(String code) {
+        int id = Arrays.binarySearch(codes, code);
+        return id >= 0 ? id : -1;
+    }
+
+    public String code(int id) {
+        return codes[id];
+    }
+
+    // Unități din moneda `id` pentru o unitate din moneda de bază
+    public double rate(int id) {
+        return rates[id];
+    }
+
+    // Unități din `to` pentru o unitate din `from`
+    public double crossRate(int from, int to) {
+        return cross[from * n + to];
+    }
+
+    public double convert(double amount, int from, int to) {
+        return amount * cross[from * n + to];
+    }
+
+    public static final class Builder {
+        private String[] codes = new String[256];
+        private double[] rates = new double[256];
+        private final java.util.Map<String, Integer> positions = new java.util.HashMap<>();
+        private int size;
+
+        // Un cod repetat își păstrează ultimul curs; cursurile nepozitive sau infinite sunt ignorate
+        public Builder put(String code, double rate) {
+            if (!(rate > 0) || Double.isInfinite(rate)) return this;
+            Integer existing = positions.get(code);
+            if (existing != null) {
+                rates[existing] = rate;
+                return this;
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+                rates = Arrays.copyOf(rates, size * 2);
+            }
+            positions.put(code, size);
+            codes[size] = code;
+            rates[size++] = rate;
+            return this;
+        }
+
+        public RateTable build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> codes[a].compareTo(codes[b]));
+            String[] sortedCodes = new String[size];
+            double[] sortedRates = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedCodes[i] = codes[order[i]];
+                sortedRates[i] = rates[order[i]];
+            }
+            return new RateTable(sortedCodes, sortedRates);
+        }
+    }
+}
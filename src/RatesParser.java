@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+// Parser pentru răspunsul API-ului de curs valutar, citit direct din fluxul HTTP, într-o singură trecere.
+// Caută cheia "rates" de pe primul nivel și trimite fiecare pereche "COD": valoare către un Sink;
+// celelalte câmpuri sunt sărite fără să fie construite. Codurile de 3 litere mari vin dintr-un
+// tabel de String-uri refolosite, iar numerele se parsează dintr-un buffer refolosit, deci
+// pe răspuns se alocă practic doar ce alocă Sink-ul. O instanță nu e sigură între fire.
+final class RatesParser {
+    private static final byte[] RATES_KEY = {'r', 'a', 't', 'e', 's'};
+    private static final String[] CODES = new String[26 * 26 * 26];
+
+    interface Sink {
+        void rate(String currency, double value);
+    }
+
+    private final byte[] buffer = new byte[8192];
+    private final StringBuilder text = new StringBuilder(32);
+    private InputStream in;
+    private int pos;
+    private int limit;
+
+    // Numărul de rate citite; IOException dacă JSON-ul e invalid sau lipsește "rates"
+    int parse(InputStream in, Sink sink) throws IOException {
+        this.in = in;
+        pos = 0;
+        limit = 0;
+        try {
+            int found = -1;
+            expect('{');
+            if (peekToken() == '}') {
+                pos++;
+            } else {
+                do {
+                    expect('"');
+                    boolean rates = matchKey(RATES_KEY);
+                    expect(':');
+                    if (rates && peekToken() == '{') found = parseRates(sink);
+                    else skipValue();
+                } while (separator('}'));
+            }
+            if (found < 0) throw new IOException("Răspuns fără obiectul \"rates\"");
+            return found;
+        } finally {
+            this.in = null;
+        }
+    }
+
+    private int parseRates(Sink sink) throws IOException {
+        expect('{');
+        if (peekToken() == '}') {
+            pos++;
+            return 0;
+        }
+        int count = 0;
+        do {
+            expect('"');
+            String currency = readCode();
+            expect(':');
+            sink.rate(currency, readNumber());
+            count++;
+        } while (separator('}'));
+        return count;
+    }
+
+    // Cheia curentă (după ghilimele) e exact `key`? Citește până la ghilimelele de final.
+    private boolean matchKey(byte[] key) throws IOException {
+        int n = 0;
+        boolean match = true;
+        int c;
+        while ((c = read()) != '"') {
+            if (c < 0) throw eof();
+            if (c == '\\') {
+                match = false;
+                if (read() < 0) throw eof();
+                continue;
+            }
+            if (n >= key.length || key[n] != c) match = false;
+            n++;
+        }
+        return match && n == key.length;
+    }
+
+    // Codurile ISO (3 litere mari) vin din tabel; orice altceva devine un String nou
+    private String readCode() throws IOException {
+        text.setLength(0);
+        int c;
+        while ((c = read()) != '"') {
+            if (c < 0) throw eof();
+            if (c == '\\') throw new IOException("Cod de monedă invalid în răspuns");
+            text.append((char) c);
+        }
+        if (text.length() == 3) {
+            int a = text.charAt(0) - 'A';
+            int b = text.charAt(1) - 'A';
+            int d = text.charAt(2) - 'A';
+            if ((a | b | d) >= 0 && a < 26 && b < 26 && d < 26) {
+                int id = (a * 26 + b) * 26 + d;
+                String code = CODES[id];
+                if (code == null) {
+                    code = text.toString().intern();
+                    CODES[id] = code;
+                }
+                return code;
+            }
+        }
+        return text.toString();
+    }
+
+    // Ratele vin ca zecimale simple (cifre, cel mult un punct), adunate direct din octeți;
+    // orice altă formă (semn, exponent, peste 19 cifre) trece prin NumberParser.parseDouble
+    private double readNumber() throws IOException {
+        skipWhitespace();
+        text.setLength(0);
+        long w = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean afterDot = false;
+        boolean simple = true;
+        int c;
+        while ((c = peek()) >= 0 && (c >= '0' && c <= '9' || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E')) {
+            pos++;
+            text.append((char) c);
+            if (c >= '0' && c <= '9') {
+                if (w != 0 || c != '0') {
+                    w = w * 10 + (c - '0');
+                    digits++;
+                }
+                if (afterDot) scale++;
+            } else if (c == '.' && !afterDot) {
+                afterDot = true;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple && digits <= 18 && text.length() > 0 && text.charAt(text.length() - 1) != '.' && text.charAt(0) != '.') {
+            double value = w == 0 ? 0 : NumberParser.fromDecimal(w, -scale);
+            if (!Double.isNaN(value)) return value;
+        }
+        try {
+            return NumberParser.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Rată invalidă în răspuns: " + text, e);
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int c = peekToken();
+        if (c == '{' || c == '[') {
+            pos++;
+            int close = c == '{' ? '}' : ']';
+            if (peekToken() == close) {
+                pos++;
+                return;
+            }
+            do {
+                if (close == '}') {
+                    expect('"');
+                    skipString();
+                    expect(':');
+                }
+                skipValue();
+            } while (separator(close));
+        } else if (c == '"') {
+            pos++;
+            skipString();
+        } else {
+            // număr, true, false, null
+            while ((c = peek()) >= 0 && c != ',' && c != '}' && c != ']' && c > ' ') pos++;
+        }
+    }
+
+    private void skipString() throws IOException {
+        int c;
+        while ((c = read()) != '"') {
+            if (c < 0) throw eof();
+            if (c == '\\' && read() < 0) throw eof();
+        }
+    }
+
+    // După o valoare: ',' (mai urmează) sau `close` (s-a terminat)
+    private boolean separator(int close) throws IOException {
+        int c = nextToken();
+        if (c == ',') return true;
+        if (c == close) return false;
+        throw unexpected(c);
+    }
+
+    private void expect(int expected) throws IOException {
+        int c = nextToken();
+        if (c != expected) throw unexpected(c);
+    }
+
+    private int peekToken() throws IOException {
+        skipWhitespace();
+        return peek();
+    }
+
+    private int nextToken() throws IOException {
+        skipWhitespace();
+        return read();
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') pos++;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private IOException unexpected(int c) {
+        return c < 0 ? eof() : new IOException("JSON invalid: caracter neașteptat '" + (char) c + "'");
+    }
+
+    private static IOException eof() {
+        return new IOException("Răspuns incomplet");
+    }
+}
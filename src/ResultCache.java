@@ -0,0 +1,113 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache LRU mărginit pentru rezultatele expresiilor repetate.
+// E împărțit în segmente, fiecare cu propriul lock, ca firele să nu se blocheze între ele.
+public final class ResultCache {
+    private final Segment[] segments;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResultCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Dimensiunea cache-ului trebuie să fie pozitivă");
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        count = Math.max(1, Math.min(count, Integer.highestOneBit(maxSize)));
+        int perSegment = (maxSize + count - 1) / count;
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) segments[i] = new Segment(perSegment);
+        mask = count - 1;
+    }
+
+    // Rezultatul din cache sau, la miss, evaluarea expresiei (care se și memorează)
+    public double evaluate(String expr) {
+        String key = normalize(expr);
+        Segment segment = segmentFor(key);
+        Double cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        double result = CalculatorLogic.evaluateLeftToRight(key, 0, key.length());
+        synchronized (segment) {
+            segment.put(key, result);
+        }
+        return result;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    // Cheia normalizată: expresia fără spații
+    static String normalize(String expr) {
+        int i = 0;
+        while (i < expr.length() && !Character.isWhitespace(expr.charAt(i))) i++;
+        if (i == expr.length()) return expr;
+        StringBuilder sb = new StringBuilder(expr.length());
+        sb.append(expr, 0, i);
+        for (; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & mask];
+    }
+
+    private final class Segment extends LinkedHashMap<String, Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Timpi de pornire măsurați de la startul procesului JVM.
+// Activare: java -Dcalculator.startupMetrics=true ...
+public final class StartupMetrics {
+    private static final boolean ENABLED = Boolean.getBoolean("calculator.startupMetrics");
+    // java.management se încarcă doar când măsurătorile sunt activate
+    private static final long PROCESS_START = ENABLED
+        ? java.lang.management.ManagementFactory.getRuntimeMXBean().getStartTime()
+        : System.currentTimeMillis();
+    private static final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    private StartupMetrics() {
+    }
+
+    public static long millisSinceStart() {
+        return System.currentTimeMillis() - PROCESS_START;
+    }
+
+    // Raportează fiecare eveniment o singură dată, la stderr
+    public static void mark(String event) {
+        if (ENABLED && reported.add(event)) {
+            System.err.println("[startup] " + event + ": " + millisSinceStart() + " ms");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Evaluare stânga-dreapta peste un flux de octeți, cu memorie constantă.
+// Expresia nu e niciodată ținută întreagă în memorie: se citește pe bucăți
+// (sau pe ferestre mapate din fișier) și se aplică pe acumulator pe loc.
+// Aceeași semantică ca CalculatorLogic.evaluateLeftToRight.
+public final class StreamingEvaluator {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    // Un operand mai lung de atât nu e o expresie de calculator, e un fișier corupt
+    private static final int MAX_NUMBER_CHARS = 4096;
+
+    private static final int NUM_NONE = 0;
+    private static final int NUM_MANTISSA = 1;
+    private static final int NUM_EXP_MARK = 2;
+    private static final int NUM_EXP_SIGN = 3;
+    private static final int NUM_EXP_DIGITS = 4;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder number = new StringBuilder(32);
+
+    private double result;
+    private char pendingOp;
+    private boolean hasValue;
+    private boolean negative;
+    private int numberState;
+    private boolean seenDot;
+    private int exponentMark;
+
+    private long bytesProcessed;
+    private long elapsedNanos;
+
+    public double evaluate(ReadableByteChannel channel) throws IOException {
+        long start = begin();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            feed(buffer);
+            buffer.clear();
+        }
+        return end(start);
+    }
+
+    // Evaluează regiunea [position, position + size) din fișier prin ferestre mapate
+    public double evaluate(FileChannel channel, long position, long size) throws IOException {
+        long start = begin();
+        long offset = position;
+        long limit = position + size;
+        while (offset < limit) {
+            long window = Math.min(MAP_WINDOW, limit - offset);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, window);
+            feed(mapped);
+            offset += window;
+        }
+        return end(start);
+    }
+
+    public double evaluate(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return evaluate(channel, 0, channel.size());
+        }
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getThroughputMBps() {
+        if (elapsedNanos == 0) return 0;
+        return (bytesProcessed / (1024.0 * 1024.0)) / (elapsedNanos / 1e9);
+    }
+
+    private long begin() {
+        result = 0;
+        pendingOp = 0;
+        hasValue = false;
+        negative = false;
+        numberState = NUM_NONE;
+        seenDot = false;
+        number.setLength(0);
+        buffer.clear();
+        bytesProcessed = 0;
+        return System.nanoTime();
+    }
+
+    private double end(long start) {
+        finishStream();
+        elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private void feed(ByteBuffer bytes) {
+        int n = bytes.remaining();
+        for (int i = 0; i < n; i++) {
+            feed((char) (bytes.get() & 0xff));
+        }
+        bytesProcessed += n;
+    }
+
+    private void feed(char c) {
+        switch (numberState) {
+            case NUM_NONE:
+                if (CalculatorLogic.isDigit(c) || c == '.') {
+                    appendNumber(c);
+                    seenDot = c == '.';
+                    numberState = NUM_MANTISSA;
+                } else {
+                    handleSymbol(c);
+                }
+                break;
+            case NUM_MANTISSA:
+                if (CalculatorLogic.isDigit(c)) {
+                    appendNumber(c);
+                } else if (c == '.' && !seenDot) {
+                    appendNumber(c);
+                    seenDot = true;
+                } else if (c == 'E' || c == 'e') {
+                    exponentMark = number.length();
+                    appendNumber(c);
+                    numberState = NUM_EXP_MARK;
+                } else {
+                    finishNumber(number.length());
+                    feed(c);
+                }
+                break;
+            case NUM_EXP_MARK:
+                if (CalculatorLogic.isDigit(c)) {
+                    appendNumber(c);
+                    numberState = NUM_EXP_DIGITS;
+                } else if (c == '-' || c == '+') {
+                    appendNumber(c);
+                    numberState = NUM_EXP_SIGN;
+                } else {
+                    // "E" nu era exponent: e un caracter ignorat
+                    finishNumber(exponentMark);
+                    feed(c);
+                }
+                break;
+            case NUM_EXP_SIGN:
+                if (CalculatorLogic.isDigit(c)) {
+                    appendNumber(c);
+                    numberState = NUM_EXP_DIGITS;
+                } else {
+                    // semnul de după "E" era de fapt un operator
+                    char sign = number.charAt(exponentMark + 1);
+                    finishNumber(exponentMark);
+                    handleSymbol(sign);
+                    feed(c);
+                }
+                break;
+            default: // NUM_EXP_DIGITS
+                if (CalculatorLogic.isDigit(c)) {
+                    appendNumber(c);
+                } else {
+                    finishNumber(number.length());
+                    feed(c);
+                }
+                break;
+        }
+    }
+
+    private void finishStream() {
+        switch (numberState) {
+            case NUM_MANTISSA:
+            case NUM_EXP_DIGITS:
+                finishNumber(number.length());
+                break;
+            case NUM_EXP_MARK:
+                finishNumber(exponentMark);
+                break;
+            case NUM_EXP_SIGN:
+                char sign = number.charAt(exponentMark + 1);
+                finishNumber(exponentMark);
+                handleSymbol(sign);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void appendNumber(char c) {
+        if (number.length() >= MAX_NUMBER_CHARS) {
+            throw new NumberFormatException("Operand prea lung (peste " + MAX_NUMBER_CHARS + " caractere)");
+        }
+        number.append(c);
+    }
+
+    private void finishNumber(int length) {
+        if (hasValue && pendingOp == 0) throw CalculatorLogic.operandWithoutOperator(number, 0, length);
+        double val = CalculatorLogic.parseNumber(number, 0, length);
+        number.setLength(0);
+        numberState = NUM_NONE;
+        if (negative) val = -val;
+        negative = false;
+        if (!hasValue) {
+            result = val;
+            hasValue = true;
+        } else {
+            result = CalculatorLogic.apply(result, pendingOp, val);
+        }
+        pendingOp = 0;
+    }
+
+    private void handleSymbol(char c) {
+        switch (c) {
+            case '+': case '*': case '/':
+                if (hasValue) pendingOp = c;
+                negative = false;
+                break;
+            case '-':
+                if (!hasValue || pendingOp != 0) negative = !negative;
+                else pendingOp = c;
+                break;
+            case '%':
+                if (hasValue && pendingOp == 0) result /= 100;
+                negative = false;
+                break;
+            default:
+                break;
+        }
+    }
+}